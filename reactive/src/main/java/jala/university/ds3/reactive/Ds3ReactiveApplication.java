@@ -0,0 +1,13 @@
+package jala.university.ds3.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class Ds3ReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(Ds3ReactiveApplication.class, args);
+    }
+
+}
@@ -0,0 +1,14 @@
+package jala.university.ds3.reactive.domain.user;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record AuthenticationDTO(
+        @NotBlank(message = "Login is required")
+        @Size(min = 3, max = 20, message = "Login must be between 3 and 20 characters")
+        String login,
+
+        @NotBlank(message = "Password is required")
+        @Size(min = 6, message = "Password must be at least 6 characters long")
+        String password
+) {}
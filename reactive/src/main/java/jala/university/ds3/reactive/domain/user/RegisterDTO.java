@@ -0,0 +1,22 @@
+package jala.university.ds3.reactive.domain.user;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public record RegisterDTO(
+        @NotBlank(message = "Name is required")
+        @Size(min = 2, max = 200, message = "Name must be between 2 and 200 characters")
+        String name,
+
+        @NotBlank(message = "Login is required")
+        @Size(min = 3, max = 20, message = "Login must be between 3 and 20 characters")
+        String login,
+
+        @NotBlank(message = "Password is required")
+        @Size(min = 6, max = 100, message = "Password must be between 6 and 100 characters")
+        String password,
+
+        @NotNull(message = "Role is required")
+        UserRole role
+) {}
@@ -0,0 +1,56 @@
+package jala.university.ds3.reactive.domain.user;
+
+import jala.university.ds3.reactive.utils.UuidV7;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Row of the shared users table. Mapped by ReactiveUserRepository, so the
+ * BINARY(16) id conversion lives there instead of in annotations.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class User implements UserDetails {
+
+    private static final List<GrantedAuthority> ADMIN_AUTHORITIES = List.of(
+            new SimpleGrantedAuthority("ROLE_ADMIN"),
+            new SimpleGrantedAuthority("ROLE_USER"));
+    private static final List<GrantedAuthority> USER_AUTHORITIES = List.of(
+            new SimpleGrantedAuthority("ROLE_USER"));
+
+    // UUIDv7 string in Java, BINARY(16) in the database
+    private String id;
+
+    private String name;
+    private String login;
+    private String password;
+    private UserRole role;
+
+    public User(String name, String login, String encryptedPassword, UserRole role) {
+        this.id = UuidV7.randomUUID().toString();
+        this.name = name;
+        this.login = login;
+        this.password = encryptedPassword;
+        this.role = role;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return role == UserRole.ADMIN ? ADMIN_AUTHORITIES : USER_AUTHORITIES;
+    }
+
+    @Override
+    public String getUsername() {
+        return login;
+    }
+}
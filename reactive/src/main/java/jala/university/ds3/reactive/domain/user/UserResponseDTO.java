@@ -0,0 +1,12 @@
+package jala.university.ds3.reactive.domain.user;
+
+/**
+ * Read-only view of a user, mapped straight from the row (the password
+ * column is never selected) and used as the response body of the user routes.
+ */
+public record UserResponseDTO(String id, String name, String login, UserRole role) {
+
+    public static UserResponseDTO from(User user) {
+        return new UserResponseDTO(user.getId(), user.getName(), user.getLogin(), user.getRole());
+    }
+}
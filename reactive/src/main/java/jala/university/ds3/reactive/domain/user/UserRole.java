@@ -0,0 +1,16 @@
+package jala.university.ds3.reactive.domain.user;
+
+public enum UserRole {
+
+    ADMIN("ADMIN"),
+    USER("USER");
+
+    private String role;
+
+    UserRole(String role) {
+        this.role = role;
+    }
+    public String getRole() {
+        return role;
+    }
+}
@@ -0,0 +1,7 @@
+package jala.university.ds3.reactive.dto;
+
+/**
+ * Fields a user may change on PUT /users/{id}; blank values are left unchanged.
+ */
+public record UserUpdateDTO(String name, String password) {
+}
@@ -0,0 +1,37 @@
+package jala.university.ds3.reactive.infra.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+
+/**
+ * Runs password encoding on the hashing scheduler. A full queue surfaces as a
+ * RejectedExecutionException, which the routes turn into 503 with Retry-After.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final Scheduler scheduler;
+    private final Duration retryAfter;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, Scheduler passwordHashingScheduler,
+                          @Value("${api.security.hashing.retry-after:1s}") Duration retryAfter) {
+        this.passwordEncoder = passwordEncoder;
+        this.scheduler = passwordHashingScheduler;
+        this.retryAfter = retryAfter;
+    }
+
+    public Mono<String> encode(String rawPassword) {
+        return Mono.fromCallable(() -> passwordEncoder.encode(rawPassword))
+                .subscribeOn(scheduler);
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
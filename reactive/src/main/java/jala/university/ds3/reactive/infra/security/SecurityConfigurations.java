@@ -0,0 +1,92 @@
+package jala.university.ds3.reactive.infra.security;
+
+import jala.university.ds3.reactive.repositories.ReactiveUserRepository;
+import jala.university.ds3.reactive.service.AuthorizationService;
+import jala.university.ds3.reactive.service.TokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+@EnableWebFluxSecurity
+public class SecurityConfigurations {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         TokenService tokenService,
+                                                         ReactiveUserRepository userRepository) {
+        return http
+                .csrf(csrf -> csrf.disable())
+                .httpBasic(httpBasic -> httpBasic.disable())
+                .formLogin(formLogin -> formLogin.disable())
+                // Stateless: no WebSession, the token is checked on every request
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                // Same answer as the servlet stack when no token is sent
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+                .authorizeExchange(authorize -> authorize
+                        // Public endpoints
+                        .pathMatchers(HttpMethod.POST, "/auth/login").permitAll()
+                        .pathMatchers(HttpMethod.POST, "/auth/register").permitAll()
+
+                        .pathMatchers("/actuator/**").permitAll()
+
+                        // User endpoints
+                        .pathMatchers(HttpMethod.GET, "/users/currentUser").hasAnyRole("USER", "ADMIN")
+                        .pathMatchers(HttpMethod.GET, "/users/id").hasAnyRole("USER", "ADMIN")
+                        .pathMatchers(HttpMethod.GET, "/users").hasRole("ADMIN")
+                        .pathMatchers(HttpMethod.PUT, "/users/**").hasAnyRole("USER", "ADMIN")
+                        .pathMatchers(HttpMethod.DELETE, "/users/**").hasRole("ADMIN")
+
+                        // Default - require authentication
+                        .anyExchange().authenticated()
+                )
+                .addFilterAt(new SecurityFilter(tokenService, userRepository), SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    /**
+     * BCrypt is CPU-bound and must not run on the event loop. It gets its own
+     * small pool with a bounded queue; when the queue is full, submissions are
+     * rejected and the handlers answer 503 with Retry-After.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler passwordHashingScheduler(@Value("${api.security.hashing.threads:0}") int threads,
+                                              @Value("${api.security.hashing.queue-capacity:200}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // The bounded elastic cap applies per thread; split the total capacity between them.
+        // Daemon threads, idle ones are released after 60s
+        return Schedulers.newBoundedElastic(poolSize, Math.max(1, queueCapacity / poolSize), "password-hash", 60, true);
+    }
+
+    @Bean
+    public ReactiveAuthenticationManager authenticationManager(AuthorizationService authorizationService,
+                                                               PasswordEncoder passwordEncoder,
+                                                               Scheduler passwordHashingScheduler) {
+        var manager = new UserDetailsRepositoryReactiveAuthenticationManager(authorizationService);
+        manager.setPasswordEncoder(passwordEncoder);
+        manager.setScheduler(passwordHashingScheduler);
+        // Hashes below the current cost are rehashed on the next successful login
+        manager.setUserDetailsPasswordService(authorizationService);
+        return manager;
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${api.security.password.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+}
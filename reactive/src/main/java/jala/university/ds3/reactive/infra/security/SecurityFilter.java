@@ -0,0 +1,57 @@
+package jala.university.ds3.reactive.infra.security;
+
+import jala.university.ds3.reactive.repositories.ReactiveUserRepository;
+import jala.university.ds3.reactive.service.TokenService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of the main application's SecurityFilter: verifies the
+ * Bearer token and loads the user without blocking the event loop. The
+ * authentication travels in the Reactor context instead of a ThreadLocal.
+ * Not a bean: WebFlux would also register any WebFilter bean as a global filter,
+ * so SecurityConfigurations creates it for the security chain only.
+ */
+public class SecurityFilter implements WebFilter {
+
+    private final TokenService tokenService;
+    private final ReactiveUserRepository userRepository;
+
+    public SecurityFilter(TokenService tokenService, ReactiveUserRepository userRepository) {
+        this.tokenService = tokenService;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var token = recoverToken(exchange);
+        // HMAC verification is a few microseconds (and cached), so it stays on the event loop
+        var login = token == null ? null : tokenService.validateToken(token);
+
+        if (login == null || login.isEmpty()) {
+            return chain.filter(exchange);
+        }
+
+        return userRepository.findByLogin(login)
+                .map(user -> new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()))
+                .flatMap(authentication -> chain.filter(exchange)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication))
+                        .thenReturn(true))
+                // Unknown user: continue unauthenticated, as the servlet filter does
+                .switchIfEmpty(Mono.defer(() -> chain.filter(exchange).thenReturn(true)))
+                .then();
+    }
+
+    private String recoverToken(ServerWebExchange exchange) {
+        var authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        return authHeader.replace("Bearer ", "");
+    }
+}
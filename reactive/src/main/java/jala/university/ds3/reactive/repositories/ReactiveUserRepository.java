@@ -0,0 +1,224 @@
+package jala.university.ds3.reactive.repositories;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.r2dbc.spi.Readable;
+import jala.university.ds3.reactive.domain.user.User;
+import jala.university.ds3.reactive.domain.user.UserResponseDTO;
+import jala.university.ds3.reactive.domain.user.UserRole;
+import jala.university.ds3.reactive.utils.UuidBinary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Non-blocking access to the shared users table. Queries are written out with
+ * DatabaseClient because the id is a String in Java and, with app.users.binary-id,
+ * BINARY(16) in the table (VARCHAR(36) otherwise, as in the main application);
+ * ids are converted at the bind and read sites. Response queries never select
+ * the password column.
+ * <p>
+ * Writes behave like the main application's: updates increment version, so its
+ * optimistic locking sees them, and with app.legacy.sync.enabled each change writes
+ * the same user_outbox row its UserOutboxListener does, in the same transaction.
+ */
+@Repository
+public class ReactiveUserRepository {
+
+    private static final String USER_COLUMNS = "select id, name, login, password, role from users ";
+    private static final String RESPONSE_COLUMNS = "select id, name, login, role from users ";
+    private static final String UPSERT = "UPSERT";
+    private static final String DELETE = "DELETE";
+
+    private final DatabaseClient client;
+    private final TransactionalOperator transactions;
+    private final ObjectWriter snapshotWriter;
+    private final boolean binaryId;
+    private final boolean outbox;
+
+    public ReactiveUserRepository(DatabaseClient client, TransactionalOperator transactions, ObjectMapper objectMapper,
+                                  @Value("${app.users.binary-id:false}") boolean binaryId,
+                                  @Value("${app.legacy.sync.enabled:true}") boolean outbox) {
+        this.client = client;
+        this.transactions = transactions;
+        this.snapshotWriter = objectMapper.writerFor(UserSnapshot.class);
+        this.binaryId = binaryId;
+        this.outbox = outbox;
+    }
+
+    public Mono<User> findByLogin(String login) {
+        return client.sql(USER_COLUMNS + "where login = :login")
+                .bind("login", login)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<User> findById(String id) {
+        return client.sql(USER_COLUMNS + "where id = :id")
+                .bind("id", idParameter(id))
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<UserResponseDTO> findResponseByLogin(String login) {
+        return client.sql(RESPONSE_COLUMNS + "where login = :login")
+                .bind("login", login)
+                .map(ReactiveUserRepository::toResponse)
+                .one();
+    }
+
+    public Mono<UserResponseDTO> findResponseById(String id) {
+        return client.sql(RESPONSE_COLUMNS + "where id = :id")
+                .bind("id", idParameter(id))
+                .map(ReactiveUserRepository::toResponse)
+                .one();
+    }
+
+    /**
+     * All users in id order. Rows are emitted as the driver reads them,
+     * so a slow subscriber holds back the query instead of buffering the table.
+     */
+    public Flux<UserResponseDTO> findAllResponses() {
+        return client.sql(RESPONSE_COLUMNS + "order by id")
+                .map(ReactiveUserRepository::toResponse)
+                .all();
+    }
+
+    public Flux<UserResponseDTO> findResponsesOrderById(int limit) {
+        return client.sql(RESPONSE_COLUMNS + "order by id limit :limit")
+                .bind("limit", limit)
+                .map(ReactiveUserRepository::toResponse)
+                .all();
+    }
+
+    public Flux<UserResponseDTO> findResponsesAfterId(String id, int limit) {
+        return client.sql(RESPONSE_COLUMNS + "where id > :id order by id limit :limit")
+                .bind("id", idParameter(id))
+                .bind("limit", limit)
+                .map(ReactiveUserRepository::toResponse)
+                .all();
+    }
+
+    public Mono<Boolean> existsByLogin(String login) {
+        return client.sql("select 1 from users where login = :login")
+                .bind("login", login)
+                .map(row -> true)
+                .first()
+                .defaultIfEmpty(false);
+    }
+
+    public Mono<User> insert(User user) {
+        return client.sql("insert into users (id, name, login, password, role) "
+                        + "values (:id, :name, :login, :password, :role)")
+                .bind("id", idParameter(user.getId()))
+                .bind("name", user.getName())
+                .bind("login", user.getLogin())
+                .bind("password", user.getPassword())
+                .bind("role", user.getRole().name())
+                .fetch()
+                .rowsUpdated()
+                .then(writeOutbox(UPSERT, user))
+                .thenReturn(user)
+                .as(transactions::transactional);
+    }
+
+    public Mono<User> update(User user) {
+        return client.sql("update users set name = :name, password = :password, role = :role, "
+                        + "version = version + 1 where id = :id")
+                .bind("name", user.getName())
+                .bind("password", user.getPassword())
+                .bind("role", user.getRole().name())
+                .bind("id", idParameter(user.getId()))
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> updated > 0 ? writeOutbox(UPSERT, user) : Mono.empty())
+                .thenReturn(user)
+                .as(transactions::transactional);
+    }
+
+    public Mono<Long> updatePassword(String login, String encodedPassword) {
+        // Read first: the outbox row carries the rest of the user
+        return findByLogin(login)
+                .flatMap(user -> client.sql("update users set password = :password, version = version + 1 "
+                                + "where id = :id")
+                        .bind("password", encodedPassword)
+                        .bind("id", idParameter(user.getId()))
+                        .fetch()
+                        .rowsUpdated()
+                        .flatMap(updated -> writeOutbox(UPSERT, user).thenReturn(updated)))
+                .defaultIfEmpty(0L)
+                .as(transactions::transactional);
+    }
+
+    public Mono<Long> deleteById(String id) {
+        return findById(id)
+                .flatMap(user -> client.sql("delete from users where id = :id")
+                        .bind("id", idParameter(id))
+                        .fetch()
+                        .rowsUpdated()
+                        .flatMap(deleted -> writeOutbox(DELETE, user).thenReturn(deleted)))
+                .defaultIfEmpty(0L)
+                .as(transactions::transactional);
+    }
+
+    private Mono<Void> writeOutbox(String eventType, User user) {
+        if (!outbox) {
+            return Mono.empty();
+        }
+        String payload;
+        try {
+            payload = snapshotWriter.writeValueAsString(
+                    new UserSnapshot(user.getId(), user.getName(), user.getLogin(), user.getRole().name()));
+        } catch (JsonProcessingException e) {
+            return Mono.error(new IllegalStateException("Cannot serialize user " + user.getId() + " for the outbox", e));
+        }
+        // user_id is BINARY(16) whatever the users.id layout
+        return client.sql("insert into user_outbox (user_id, event_type, payload) values (:userId, :eventType, :payload)")
+                .bind("userId", UuidBinary.toBytes(user.getId()))
+                .bind("eventType", eventType)
+                .bind("payload", payload)
+                .then();
+    }
+
+    // byte[] rather than the spec's ByteBuffer: r2dbc-h2 cannot decode BINARY into a ByteBuffer
+    private Object idParameter(String id) {
+        return binaryId ? UuidBinary.toBytes(id) : id;
+    }
+
+    private static String readId(Readable row) {
+        Object id = row.get("id");
+        if (id instanceof ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return UuidBinary.fromBytes(bytes);
+        }
+        return id instanceof byte[] bytes ? UuidBinary.fromBytes(bytes) : String.valueOf(id);
+    }
+
+    private static User toUser(Readable row) {
+        return User.builder()
+                .id(readId(row))
+                .name(row.get("name", String.class))
+                .login(row.get("login", String.class))
+                .password(row.get("password", String.class))
+                .role(UserRole.valueOf(row.get("role", String.class)))
+                .build();
+    }
+
+    private static UserResponseDTO toResponse(Readable row) {
+        return new UserResponseDTO(readId(row),
+                row.get("name", String.class),
+                row.get("login", String.class),
+                UserRole.valueOf(row.get("role", String.class)));
+    }
+
+    // Outbox payload, as read by the main application's legacy sync
+    private record UserSnapshot(String id, String name, String login, String role) {
+    }
+}
@@ -0,0 +1,55 @@
+package jala.university.ds3.reactive.routes;
+
+import jala.university.ds3.reactive.infra.security.PasswordHasher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Functional routes for the same /auth and /users endpoints as the servlet controllers.
+ * Access rules live in SecurityConfigurations.
+ */
+@Configuration
+public class ApiRoutes {
+
+    @Bean
+    public RouterFunction<ServerResponse> authRoutes(AuthHandler handler, PasswordHasher passwordHasher) {
+        return route()
+                .POST("/auth/login", handler::login)
+                .POST("/auth/register", handler::register)
+                .onError(RejectedExecutionException.class, (e, request) -> hashingBusy(passwordHasher))
+                .build();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> userRoutes(UserHandler handler, PasswordHasher passwordHasher) {
+        return route()
+                .GET("/users/currentUser", handler::currentUser)
+                .GET("/users/id", handler::getById)
+                .GET("/users", handler::getUsers)
+                .PUT("/users/{id}", handler::updateUser)
+                .DELETE("/users/{id}", handler::deleteUser)
+                .onError(RejectedExecutionException.class, (e, request) -> hashingBusy(passwordHasher))
+                .build();
+    }
+
+    /**
+     * The hashing scheduler queue is full: fail fast instead of queueing more BCrypt work.
+     */
+    private static Mono<ServerResponse> hashingBusy(PasswordHasher passwordHasher) {
+        // Retry-After takes whole seconds; round up so clients never retry early
+        long seconds = Math.max(1, (passwordHasher.getRetryAfter().toMillis() + 999) / 1000);
+        return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+                .bodyValue(Map.of("error", "Password hashing is busy, retry later"));
+    }
+}
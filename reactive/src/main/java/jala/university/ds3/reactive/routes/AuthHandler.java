@@ -0,0 +1,125 @@
+package jala.university.ds3.reactive.routes;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jala.university.ds3.reactive.domain.user.AuthenticationDTO;
+import jala.university.ds3.reactive.domain.user.RegisterDTO;
+import jala.university.ds3.reactive.domain.user.User;
+import jala.university.ds3.reactive.infra.security.PasswordHasher;
+import jala.university.ds3.reactive.repositories.ReactiveUserRepository;
+import jala.university.ds3.reactive.service.TokenService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /auth routes. Password checks and hashing run on the hashing scheduler,
+ * everything else on the event loop.
+ */
+@Component
+public class AuthHandler {
+
+    private final ReactiveAuthenticationManager authenticationManager;
+    private final ReactiveUserRepository repository;
+    private final PasswordHasher passwordHasher;
+    private final TokenService tokenService;
+    private final Validator validator;
+
+    public AuthHandler(ReactiveAuthenticationManager authenticationManager, ReactiveUserRepository repository,
+                       PasswordHasher passwordHasher, TokenService tokenService, Validator validator) {
+        this.authenticationManager = authenticationManager;
+        this.repository = repository;
+        this.passwordHasher = passwordHasher;
+        this.tokenService = tokenService;
+        this.validator = validator;
+    }
+
+    public Mono<ServerResponse> login(ServerRequest request) {
+        return request.bodyToMono(AuthenticationDTO.class)
+                .flatMap(data -> {
+                    List<String> errors = validate(data);
+                    if (!errors.isEmpty()) {
+                        return ServerResponse.badRequest().bodyValue(Map.of("errors", errors));
+                    }
+
+                    var usernamePassword = new UsernamePasswordAuthenticationToken(data.login(), data.password());
+                    return authenticationManager.authenticate(usernamePassword)
+                            .flatMap(auth -> {
+                                var user = (User) auth.getPrincipal();
+                                var token = tokenService.generateToken(user);
+
+                                return ServerResponse.ok().bodyValue(Map.of(
+                                        "token", token,
+                                        "type", "Bearer",
+                                        "user", Map.of(
+                                                "login", user.getLogin(),
+                                                "name", user.getName(),
+                                                "role", user.getRole().name()
+                                        )
+                                ));
+                            })
+                            .onErrorResume(AuthenticationException.class, ex -> ServerResponse
+                                    .status(HttpStatus.UNAUTHORIZED)
+                                    .bodyValue(Map.of("error", "Invalid credentials")));
+                })
+                .switchIfEmpty(missingBody());
+    }
+
+    public Mono<ServerResponse> register(ServerRequest request) {
+        return request.bodyToMono(RegisterDTO.class)
+                .flatMap(data -> {
+                    List<String> errors = validate(data);
+                    if (!errors.isEmpty()) {
+                        return ServerResponse.badRequest().bodyValue(Map.of("errors", errors));
+                    }
+
+                    String resolvedLogin = data.login().trim();
+                    if (resolvedLogin.isEmpty()) {
+                        return ServerResponse.badRequest().bodyValue(Map.of("error", "Login is required"));
+                    }
+
+                    return repository.existsByLogin(resolvedLogin)
+                            .flatMap(exists -> exists
+                                    ? loginTaken()
+                                    : passwordHasher.encode(data.password())
+                                            .map(hash -> new User(data.name(), resolvedLogin, hash, data.role()))
+                                            .flatMap(repository::insert)
+                                            .flatMap(saved -> ServerResponse.status(HttpStatus.CREATED)
+                                                    .bodyValue(Map.of(
+                                                            "message", "User created successfully",
+                                                            "user", Map.of(
+                                                                    "login", saved.getLogin(),
+                                                                    "name", saved.getName(),
+                                                                    "role", saved.getRole().name()
+                                                            )
+                                                    )))
+                                            // Same login registered between the check and the insert
+                                            .onErrorResume(DataIntegrityViolationException.class, e -> loginTaken()));
+                })
+                .switchIfEmpty(missingBody());
+    }
+
+    private static Mono<ServerResponse> missingBody() {
+        return ServerResponse.badRequest().bodyValue(Map.of("error", "Request body is required"));
+    }
+
+    private static Mono<ServerResponse> loginTaken() {
+        return ServerResponse.status(HttpStatus.CONFLICT).bodyValue(Map.of("error", "Login already exists"));
+    }
+
+    private <T> List<String> validate(T data) {
+        return validator.validate(data).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+    }
+}
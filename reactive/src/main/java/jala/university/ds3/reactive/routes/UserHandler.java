@@ -0,0 +1,176 @@
+package jala.university.ds3.reactive.routes;
+
+import jala.university.ds3.reactive.domain.user.User;
+import jala.university.ds3.reactive.domain.user.UserResponseDTO;
+import jala.university.ds3.reactive.dto.UserPage;
+import jala.university.ds3.reactive.dto.UserUpdateDTO;
+import jala.university.ds3.reactive.infra.security.PasswordHasher;
+import jala.university.ds3.reactive.repositories.ReactiveUserRepository;
+import jala.university.ds3.reactive.utils.UuidBinary;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * /users routes, with the same access rules and responses as the servlet UserController.
+ */
+@Component
+public class UserHandler {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final ReactiveUserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+
+    public UserHandler(ReactiveUserRepository userRepository, PasswordHasher passwordHasher) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+    }
+
+    public Mono<ServerResponse> currentUser(ServerRequest request) {
+        return authentication(request)
+                .flatMap(authentication -> userRepository.findResponseByLogin(authentication.getName()))
+                .flatMap(user -> ServerResponse.ok().bodyValue(user))
+                .switchIfEmpty(notFound());
+    }
+
+    public Mono<ServerResponse> getById(ServerRequest request) {
+        Optional<String> id = request.queryParam("id").flatMap(UuidBinary::normalize);
+
+        return authentication(request)
+                .flatMap(authentication -> Mono.justOrEmpty(id)
+                        .flatMap(userRepository::findResponseById)
+                        .flatMap(user -> canAccess(authentication, user.login())
+                                ? ServerResponse.ok().bodyValue(user)
+                                : forbidden("Access denied")))
+                .switchIfEmpty(notFound());
+    }
+
+    public Mono<ServerResponse> updateUser(ServerRequest request) {
+        Optional<String> id = UuidBinary.normalize(request.pathVariable("id"));
+
+        return authentication(request)
+                .flatMap(authentication -> Mono.justOrEmpty(id)
+                        .flatMap(userRepository::findById)
+                        .flatMap(user -> canAccess(authentication, user.getLogin())
+                                ? request.bodyToMono(UserUpdateDTO.class)
+                                        .defaultIfEmpty(new UserUpdateDTO(null, null))
+                                        .flatMap(changes -> applyUpdate(user, changes))
+                                        .flatMap(userRepository::update)
+                                        .flatMap(saved -> ServerResponse.ok().bodyValue(UserResponseDTO.from(saved)))
+                                : forbidden("Access denied")))
+                .switchIfEmpty(notFound());
+    }
+
+    public Mono<ServerResponse> deleteUser(ServerRequest request) {
+        Optional<String> id = UuidBinary.normalize(request.pathVariable("id"));
+
+        return authentication(request)
+                .flatMap(authentication -> {
+                    if (!isAdmin(authentication)) {
+                        return forbidden("Only administrators can delete users");
+                    }
+                    return Mono.justOrEmpty(id)
+                            .flatMap(userRepository::findById)
+                            .flatMap(user -> user.getLogin().equals(authentication.getName())
+                                    ? ServerResponse.status(HttpStatus.CONFLICT).bodyValue("Cannot delete your own account")
+                                    : userRepository.deleteById(user.getId())
+                                            .then(ServerResponse.ok().bodyValue(
+                                                    "User with login '" + user.getLogin() + "' has been deleted")));
+                })
+                .switchIfEmpty(notFound());
+    }
+
+    /**
+     * GET /users: without after/limit, streams every user as a JSON array (or NDJSON
+     * with Accept: application/x-ndjson) while rows are read; otherwise one keyset page.
+     */
+    public Mono<ServerResponse> getUsers(ServerRequest request) {
+        return authentication(request).flatMap(authentication -> {
+            if (!isAdmin(authentication)) {
+                return forbidden("Only administrators can list all users");
+            }
+
+            Optional<String> after = request.queryParam("after");
+            Optional<String> limit = request.queryParam("limit");
+            if (after.isEmpty() && limit.isEmpty()) {
+                boolean ndjson = request.headers().accept().stream()
+                        .anyMatch(type -> type.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON));
+                return ServerResponse.ok()
+                        .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                        .body(userRepository.findAllResponses(), UserResponseDTO.class);
+            }
+            return getUsersPage(after, limit);
+        });
+    }
+
+    private Mono<ServerResponse> getUsersPage(Optional<String> after, Optional<String> limit) {
+        int pageSize;
+        try {
+            pageSize = limit.map(Integer::parseInt).orElse(DEFAULT_PAGE_SIZE);
+        } catch (NumberFormatException e) {
+            pageSize = -1;
+        }
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return ServerResponse.badRequest().bodyValue("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Optional<String> cursor = after.flatMap(UuidBinary::normalize);
+        if (after.isPresent() && cursor.isEmpty()) {
+            return ServerResponse.badRequest().bodyValue("Invalid cursor");
+        }
+
+        int size = pageSize;
+        return cursor
+                .map(id -> userRepository.findResponsesAfterId(id, size))
+                .orElseGet(() -> userRepository.findResponsesOrderById(size))
+                .collectList()
+                .flatMap(users -> {
+                    String nextCursor = users.size() == size ? users.get(users.size() - 1).id() : null;
+                    return ServerResponse.ok().bodyValue(new UserPage(users, nextCursor));
+                });
+    }
+
+    private Mono<User> applyUpdate(User user, UserUpdateDTO changes) {
+        // Update allowed fields only
+        if (changes.name() != null && !changes.name().trim().isEmpty()) {
+            user.setName(changes.name().trim());
+        }
+        if (changes.password() == null || changes.password().trim().isEmpty()) {
+            return Mono.just(user);
+        }
+        return passwordHasher.encode(changes.password())
+                .map(hash -> {
+                    user.setPassword(hash);
+                    return user;
+                });
+    }
+
+    private static Mono<Authentication> authentication(ServerRequest request) {
+        return request.principal().cast(Authentication.class);
+    }
+
+    private static boolean canAccess(Authentication authentication, String login) {
+        return login.equals(authentication.getName()) || isAdmin(authentication);
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    private static Mono<ServerResponse> forbidden(String message) {
+        return ServerResponse.status(HttpStatus.FORBIDDEN).bodyValue(message);
+    }
+
+    private static Mono<ServerResponse> notFound() {
+        return ServerResponse.status(HttpStatus.NOT_FOUND).bodyValue("User not found");
+    }
+}
@@ -0,0 +1,35 @@
+package jala.university.ds3.reactive.service;
+
+import jala.university.ds3.reactive.repositories.ReactiveUserRepository;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+@Service
+public class AuthorizationService implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+
+    private final ReactiveUserRepository userRepository;
+
+    public AuthorizationService(ReactiveUserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return userRepository.findByLogin(username).cast(UserDetails.class);
+    }
+
+    /**
+     * Called by the authentication manager after a successful login when the stored
+     * hash uses a lower BCrypt cost than the current one; newPassword is the rehash.
+     */
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails user, String newPassword) {
+        return userRepository.updatePassword(user.getUsername(), newPassword)
+                .then(userRepository.findByLogin(user.getUsername()))
+                .cast(UserDetails.class)
+                .defaultIfEmpty(user);
+    }
+}
@@ -0,0 +1,122 @@
+package jala.university.ds3.reactive.service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTCreationException;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jala.university.ds3.reactive.domain.user.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+@Service
+public class TokenService {
+
+    private static final String ISSUER = "ds3-api";
+
+    // Algorithm and JWTVerifier are immutable and thread-safe, so they are built once
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+
+    // Verified tokens keyed by their SHA-256 digest, kept until the token expires
+    private final Cache<ByteBuffer, DecodedJWT> verifiedTokens;
+
+    public TokenService(@Value("${api.security.token.secret:default-secret-key}") String secret,
+                        @Value("${api.security.token.cache-size:10000}") long cacheSize) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
+                .withIssuer(ISSUER)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new UntilTokenExpires())
+                .build();
+    }
+
+    public String generateToken(User user) {
+        try {
+            return JWT.create()
+                    .withIssuer(ISSUER)
+                    .withSubject(user.getLogin())
+                    .withClaim("userId", user.getId().toString())
+                    .withClaim("role", user.getRole().name())
+                    .withIssuedAt(Instant.now())
+                    .withExpiresAt(genExpirationDate())
+                    .sign(algorithm);
+        } catch (JWTCreationException exception) {
+            throw new RuntimeException("Error while generating token", exception);
+        }
+    }
+
+    public String validateToken(String token) {
+        DecodedJWT decoded = decodeToken(token);
+        return decoded == null ? null : decoded.getSubject();
+    }
+
+    /**
+     * Verifies the token and returns all of its claims, or null when invalid.
+     */
+    public DecodedJWT decodeToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        // Invalid tokens resolve to null, which Caffeine does not store
+        return verifiedTokens.get(digest(token), key -> verify(token));
+    }
+
+    private DecodedJWT verify(String token) {
+        try {
+            return verifier.verify(token);
+        } catch (JWTVerificationException exception) {
+            return null;
+        }
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private Instant genExpirationDate() {
+        return LocalDateTime.now().plusHours(2).toInstant(ZoneOffset.of("-03:00"));
+    }
+
+    private static final class UntilTokenExpires implements Expiry<ByteBuffer, DecodedJWT> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, DecodedJWT value, long currentTime) {
+            Instant expiresAt = value.getExpiresAtAsInstant();
+            if (expiresAt == null) {
+                return 0;
+            }
+            return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, DecodedJWT value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, DecodedJWT value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
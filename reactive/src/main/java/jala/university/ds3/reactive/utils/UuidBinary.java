@@ -0,0 +1,39 @@
+package jala.university.ds3.reactive.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Canonical UUID string <-> BINARY(16), with the same byte order as the main
+ * application's UuidBinaryConverter, so both stacks read and write the same rows.
+ */
+public final class UuidBinary {
+
+    private UuidBinary() {
+    }
+
+    public static byte[] toBytes(String id) {
+        UUID uuid = UUID.fromString(id);
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static String fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+
+    /**
+     * Canonical (lowercase) UUID string, or empty when the value is not a UUID.
+     */
+    public static Optional<String> normalize(String id) {
+        try {
+            return Optional.of(UUID.fromString(id).toString());
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+-- users and user_outbox as left by the main application's migrations (V1-V7, default id layout), for the h2 profile
+CREATE TABLE IF NOT EXISTS users
+(
+    `id`         VARCHAR(36)  NOT NULL,
+    `name`       VARCHAR(200) NOT NULL,
+    `login`      VARCHAR(20)  NOT NULL,
+    `password`   VARCHAR(100) NOT NULL,
+    `role`       VARCHAR(20)  NOT NULL DEFAULT 'USER',
+    `updated_at` TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    `version`    BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (`id`),
+    CONSTRAINT `login_UNIQUE` UNIQUE (`login`)
+);
+
+CREATE INDEX IF NOT EXISTS users_updated_at ON users (`updated_at`, `id`);
+
+CREATE TABLE IF NOT EXISTS user_outbox
+(
+    `id`              BIGINT        NOT NULL AUTO_INCREMENT,
+    `user_id`         BINARY(16)    NOT NULL,
+    `event_type`      VARCHAR(16)   NOT NULL,
+    `payload`         VARCHAR(1024) NOT NULL,
+    `status`          VARCHAR(16)   NOT NULL DEFAULT 'PENDING',
+    `attempts`        INT           NOT NULL DEFAULT 0,
+    `next_attempt_at` TIMESTAMP(3)  NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    `last_error`      VARCHAR(500)  NULL,
+    PRIMARY KEY (`id`)
+);
+
+CREATE INDEX IF NOT EXISTS user_outbox_pending ON user_outbox (`status`, `id`);
+CREATE INDEX IF NOT EXISTS user_outbox_user ON user_outbox (`user_id`, `id`);
@@ -0,0 +1,188 @@
+package jala.university.ds3.reactive.routes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jala.university.ds3.reactive.utils.UuidBinary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "api.security.password.strength=4")
+@ActiveProfiles("h2")
+class ApiRoutesTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    @DisplayName("Should register, log in and resolve the current user from the token")
+    void testRegisterLoginCurrentUser() {
+        register("routes_ana", "USER");
+        String token = login("routes_ana", "secret1");
+
+        client.get().uri("/users/currentUser")
+                .headers(h -> h.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.login").isEqualTo("routes_ana")
+                .jsonPath("$.password").doesNotExist();
+
+        client.get().uri("/users/currentUser").exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    @DisplayName("Should reject duplicate logins and invalid registrations")
+    void testRegisterErrors() {
+        register("routes_dup", "USER");
+
+        client.post().uri("/auth/register")
+                .bodyValue(Map.of("name", "Dup", "login", "routes_dup", "password", "secret1", "role", "USER"))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+
+        client.post().uri("/auth/register")
+                .bodyValue(Map.of("name", "X", "login", "xy", "password", "1", "role", "USER"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors.length()").isEqualTo(3);
+
+        client.post().uri("/auth/login")
+                .bodyValue(Map.of("login", "routes_dup", "password", "wrong-password"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    @DisplayName("Should list users for administrators only, streamed or by keyset page")
+    void testListUsers() {
+        register("routes_admin", "ADMIN");
+        register("routes_bob", "USER");
+        String admin = login("routes_admin", "secret1");
+        String user = login("routes_bob", "secret1");
+
+        client.get().uri("/users").headers(h -> h.setBearerAuth(user)).exchange()
+                .expectStatus().isForbidden();
+
+        List<JsonNode> all = client.get().uri("/users")
+                .headers(h -> h.setBearerAuth(admin))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(JsonNode.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertNotNull(all);
+        assertTrue(all.size() >= 2);
+
+        JsonNode first = client.get().uri("/users?limit=1")
+                .headers(h -> h.setBearerAuth(admin))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(JsonNode.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(first);
+        assertEquals(all.get(0).get("id"), first.get("items").get(0).get("id"));
+        String cursor = first.get("nextCursor").asText();
+
+        client.get().uri("/users?after={after}&limit=1", cursor)
+                .headers(h -> h.setBearerAuth(admin))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items[0].id").isEqualTo(all.get(1).get("id").asText());
+
+        client.get().uri("/users?after=not-a-uuid")
+                .headers(h -> h.setBearerAuth(admin))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Should update the password of the own account and let admins delete others")
+    void testUpdateAndDelete() {
+        String id = register("routes_carol", "USER");
+        register("routes_root", "ADMIN");
+        String carol = login("routes_carol", "secret1");
+        String root = login("routes_root", "secret1");
+
+        client.put().uri("/users/{id}", id)
+                .headers(h -> h.setBearerAuth(carol))
+                .bodyValue(Map.of("name", "Carol B", "password", "changed1"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Carol B");
+        login("routes_carol", "changed1");
+        assertEquals(1L, databaseClient.sql("select version from users where id = :id").bind("id", id)
+                .map(row -> row.get("version", Long.class)).one().block());
+
+        client.delete().uri("/users/{id}", id).headers(h -> h.setBearerAuth(carol)).exchange()
+                .expectStatus().isForbidden();
+        client.delete().uri("/users/{id}", id).headers(h -> h.setBearerAuth(root)).exchange()
+                .expectStatus().isOk();
+        client.get().uri("/users/id?id={id}", id).headers(h -> h.setBearerAuth(root)).exchange()
+                .expectStatus().isNotFound();
+
+        // Same rows as the main application writes for the legacy sync: register, update, delete
+        List<String> events = databaseClient.sql("select event_type, payload from user_outbox "
+                        + "where user_id = :userId order by id")
+                .bind("userId", UuidBinary.toBytes(id))
+                .map(row -> row.get("event_type", String.class) + " " + row.get("payload", String.class))
+                .all().collectList().block();
+        assertNotNull(events);
+        assertEquals(3, events.size());
+        assertTrue(events.get(1).startsWith("UPSERT ") && events.get(1).contains("\"name\":\"Carol B\""));
+        assertTrue(events.get(2).startsWith("DELETE "));
+    }
+
+    /**
+     * Registers a user with password "secret1" and returns its id.
+     */
+    private String register(String login, String role) {
+        client.post().uri("/auth/register")
+                .bodyValue(Map.of("name", "Test " + login, "login", login, "password", "secret1", "role", role))
+                .exchange()
+                .expectStatus().isCreated();
+
+        JsonNode user = client.get().uri("/users/currentUser")
+                .headers(h -> h.setBearerAuth(login(login, "secret1")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(JsonNode.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(user);
+        return user.get("id").asText();
+    }
+
+    private String login(String login, String password) {
+        JsonNode body = client.post().uri("/auth/login")
+                .bodyValue(Map.of("login", login, "password", password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(JsonNode.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(body);
+        return body.get("token").asText();
+    }
+}
@@ -1,13 +1,35 @@
 # create schema sd3;
+# The schema is managed by Flyway (src/main/resources/db/migration); this script
+# mirrors the current state (V7, VARCHAR(36) ids) for manual setups. A database
+# created from it already contains V2-V7, so start the application against it once
+# with --spring.flyway.baseline-version=7.
 use sd3;
 
 CREATE TABLE users
 (
-    `id`       VARCHAR(36)  NOT NULL,
-    `name`     VARCHAR(200) NOT NULL,
-    `login`    VARCHAR(20)  NOT NULL,
-    `password` VARCHAR(100) NOT NULL,
-    `role`     VARCHAR(20)  NOT NULL,
+    `id`         VARCHAR(36)  NOT NULL,
+    `name`       VARCHAR(200) NOT NULL,
+    `login`      VARCHAR(20)  NOT NULL,
+    `password`   VARCHAR(100) NOT NULL,
+    `role`       VARCHAR(20)  NOT NULL,
+    `updated_at` TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    `version`    BIGINT       NOT NULL DEFAULT 0,
     PRIMARY KEY (`id`),
-    UNIQUE INDEX `id_UNIQUE` (`id` ASC) VISIBLE
-);
\ No newline at end of file
+    UNIQUE INDEX `login_UNIQUE` (`login` ASC) VISIBLE,
+    INDEX `users_updated_at` (`updated_at`, `id`)
+);
+
+CREATE TABLE user_outbox
+(
+    `id`              BIGINT        NOT NULL AUTO_INCREMENT,
+    `user_id`         BINARY(16)    NOT NULL,
+    `event_type`      VARCHAR(16)   NOT NULL,
+    `payload`         VARCHAR(1024) NOT NULL,
+    `status`          VARCHAR(16)   NOT NULL DEFAULT 'PENDING',
+    `attempts`        INT           NOT NULL DEFAULT 0,
+    `next_attempt_at` TIMESTAMP(3)  NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    `last_error`      VARCHAR(500)  NULL,
+    PRIMARY KEY (`id`),
+    INDEX `user_outbox_pending` (`status`, `id`),
+    INDEX `user_outbox_user` (`user_id`, `id`)
+);
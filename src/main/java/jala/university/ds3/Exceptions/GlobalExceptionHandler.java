@@ -3,6 +3,7 @@ package jala.university.ds3.Exceptions;
 import jakarta.servlet.http.HttpServletRequest;
 import jala.university.ds3.utils.ResponseBuilder;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -19,6 +20,15 @@ public class GlobalExceptionHandler {
         this.responseBuilder = responseBuilder;
     }
 
+    @ExceptionHandler(RetryLaterException.class)
+    public ResponseEntity<?> handleRetryLater(RetryLaterException e) {
+        // Retry-After takes whole seconds; round up so clients never retry early
+        long seconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+                .body(responseBuilder.buildResponse(e.getMessage(), e.getStatus()).getBody());
+    }
+
     @ExceptionHandler(GeneralExceptions.class)
     public ResponseEntity<?> handleGeneralExceptions(GeneralExceptions e) {
         return responseBuilder.buildResponse(e.getMessage(), e.getStatus());
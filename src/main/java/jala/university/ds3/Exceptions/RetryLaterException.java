@@ -0,0 +1,23 @@
+package jala.university.ds3.Exceptions;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+/**
+ * Temporary refusal; answered with its status and a Retry-After header.
+ */
+public abstract class RetryLaterException extends GeneralExceptions {
+
+    private static final long serialVersionUID = 1L;
+    private final Duration retryAfter;
+
+    protected RetryLaterException(String message, HttpStatus status, Duration retryAfter) {
+        super(message, status);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,17 @@
+package jala.university.ds3.Exceptions;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+/**
+ * Temporary overload; answered with 503 and a Retry-After header.
+ */
+public class ServiceUnavailableException extends RetryLaterException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(message, HttpStatus.SERVICE_UNAVAILABLE, retryAfter);
+    }
+}
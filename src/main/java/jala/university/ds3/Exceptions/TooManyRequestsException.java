@@ -0,0 +1,17 @@
+package jala.university.ds3.Exceptions;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+/**
+ * Client over its rate limit; answered with 429 and a Retry-After header.
+ */
+public class TooManyRequestsException extends RetryLaterException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message, HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+    }
+}
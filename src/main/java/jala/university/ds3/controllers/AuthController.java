@@ -1,13 +1,19 @@
 package jala.university.ds3.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jala.university.ds3.Exceptions.TooManyRequestsException;
 import jala.university.ds3.service.AuthService;
+import jala.university.ds3.service.TokenService;
 import jala.university.ds3.dto.AuthResponse;
 import jala.university.ds3.dto.LoginRequest;
+import jala.university.ds3.infra.security.LoginAttemptLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.security.core.AuthenticationException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -16,13 +22,24 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private LoginAttemptLimiter loginAttemptLimiter;
+
+    // Only BCrypt runs on the hashing pool; the request thread is released meanwhile
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
-        try {
-            String token = authService.authenticate(request.getUsername(), request.getPassword());
-            return ResponseEntity.ok(new AuthResponse(token));
-        } catch (AuthenticationException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request,
+                                                      HttpServletRequest httpRequest) {
+        Duration wait = loginAttemptLimiter.tryAcquire(request.getUsername(), httpRequest.getRemoteAddr());
+        if (!wait.isZero()) {
+            throw new TooManyRequestsException("Too many login attempts, try again later", wait);
         }
+
+        return authService.verify(request.getUsername(), request.getPassword())
+                .thenApply(user -> user
+                        .<ResponseEntity<?>>map(u -> ResponseEntity.ok(new AuthResponse(tokenService.generateToken(u))))
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials")));
     }
 }
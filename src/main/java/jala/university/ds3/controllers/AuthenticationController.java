@@ -1,17 +1,27 @@
 package jala.university.ds3.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jala.university.ds3.domain.user.AuthenticationDTO;
 import jala.university.ds3.domain.user.RegisterDTO;
 import jala.university.ds3.domain.user.User;
+import jala.university.ds3.Exceptions.TooManyRequestsException;
+import jala.university.ds3.dto.BulkRegisterResponse;
+import jala.university.ds3.dto.ErrorResponse;
+import jala.university.ds3.dto.LoginResponse;
+import jala.university.ds3.dto.RegisterResponse;
+import jala.university.ds3.dto.UserSummary;
+import jala.university.ds3.infra.security.LoginAttemptLimiter;
+import jala.university.ds3.infra.security.PasswordHashingExecutor;
 import jala.university.ds3.repositories.UserRepository;
+import jala.university.ds3.service.AuthService;
 import jala.university.ds3.service.TokenService;
+import jala.university.ds3.service.UserImportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
@@ -22,8 +32,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 
-import java.util.Map;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @RestController
 @RequestMapping("/auth")
@@ -31,7 +44,7 @@ import java.util.Optional;
 public class AuthenticationController {
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private AuthService authService;
 
     @Autowired
     private UserRepository repository;
@@ -42,80 +55,102 @@ public class AuthenticationController {
     @Autowired
     private TokenService tokenService;
 
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private PasswordHashingExecutor hashingExecutor;
+
+    @Autowired
+    private LoginAttemptLimiter loginAttemptLimiter;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
+
     @PostMapping("/login")
     @Operation(summary = "User login", description = "Authenticates user and returns JWT token")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Login successful",
-                    content = @Content(schema = @Schema(implementation = Map.class))),
+                    content = @Content(schema = @Schema(implementation = LoginResponse.class))),
             @ApiResponse(responseCode = "401", description = "Invalid credentials",
-                    content = @Content(schema = @Schema(implementation = Map.class)))
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "429", description = "Too many attempts for this login or address, see Retry-After",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "Password hashing queue full, see Retry-After",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<?> login(@RequestBody @Valid AuthenticationDTO data) {
-        try {
-            var usernamePassword = new UsernamePasswordAuthenticationToken(data.login(), data.password());
-            var auth = this.authenticationManager.authenticate(usernamePassword);
-
-            var user = (User) auth.getPrincipal();
-            var token = tokenService.generateToken(user);
-
-            return ResponseEntity.ok(Map.of(
-                    "token", token,
-                    "type", "Bearer",
-                    "user", Map.of(
-                            "login", user.getLogin(),
-                            "name", user.getName(),
-                            "role", user.getRole().name()
-                    )
-            ));
-        } catch (AuthenticationException ex) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("error", "Invalid credentials"));
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody @Valid AuthenticationDTO data,
+                                                      HttpServletRequest request) {
+        // Throttled attempts are rejected before any BCrypt work is queued
+        Duration wait = loginAttemptLimiter.tryAcquire(data.login(), request.getRemoteAddr());
+        if (!wait.isZero()) {
+            throw new TooManyRequestsException("Too many login attempts, try again later", wait);
         }
+
+        // Only BCrypt runs on the hashing pool; the request thread is released meanwhile
+        return authService.verify(data.login(), data.password())
+                .thenApply(user -> user
+                        .<ResponseEntity<?>>map(u -> ResponseEntity.ok(LoginResponse.bearer(tokenService.generateToken(u), u)))
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body(ErrorResponse.of("Invalid credentials"))));
     }
 
     @PostMapping("/register")
     @Operation(summary = "User registration", description = "Creates a new user in the system")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "User created successfully",
-                    content = @Content(schema = @Schema(implementation = Map.class))),
+                    content = @Content(schema = @Schema(implementation = RegisterResponse.class))),
             @ApiResponse(responseCode = "400", description = "Invalid data",
-                    content = @Content(schema = @Schema(implementation = Map.class))),
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "409", description = "Login already exists",
-                    content = @Content(schema = @Schema(implementation = Map.class)))
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "Password hashing queue full, see Retry-After",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<?> register(@RequestBody @Valid RegisterDTO data,
-                                      BindingResult result) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody @Valid RegisterDTO data,
+                                                         BindingResult result) {
         if (result.hasErrors()) {
             var errors = result.getFieldErrors().stream()
                     .map(fieldError -> fieldError.getDefaultMessage())
                     .toList();
-            return ResponseEntity.badRequest().body(Map.of("errors", errors));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(ErrorResponse.of(errors)));
         }
 
         String resolvedLogin = data.login() == null ? "" : data.login().trim();
         if (resolvedLogin.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", "Login is required"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ErrorResponse.of("Login is required")));
         }
 
         Optional<User> existing = repository.findByLogin(resolvedLogin);
         if (existing.isPresent()) {
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(Map.of("error", "Login already exists"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErrorResponse.of("Login already exists")));
         }
 
-        String encryptedPassword = this.passwordEncoder.encode(data.password());
-        User newUser = new User(data.name(), resolvedLogin, encryptedPassword, data.role());
-        User saved = repository.save(newUser);
-
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(Map.of(
-                        "message", "User created successfully",
-                        "user", Map.of(
-                                "login", saved.getLogin(),
-                                "name", saved.getName(),
-                                "role", saved.getRole().name()
-                        )
-                ));
+        // Only the hash holds a hashing thread; the insert waits for a connection on the task executor
+        return hashingExecutor.submit(() -> this.passwordEncoder.encode(data.password()))
+                .thenApplyAsync(encryptedPassword -> {
+                    User newUser = new User(data.name(), resolvedLogin, encryptedPassword, data.role());
+                    User saved = repository.save(newUser);
+
+                    return ResponseEntity.status(HttpStatus.CREATED)
+                            .body(new RegisterResponse("User created successfully", UserSummary.from(saved)));
+                }, taskExecutor);
+    }
+
+    @PostMapping(value = "/register/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Bulk user registration",
+            description = "Creates users from a JSON array or NDJSON stream of registration data "
+                    + "(administrators only). Returns one result per item, in input order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import processed, see per-item results",
+                    content = @Content(schema = @Schema(implementation = BulkRegisterResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Not an administrator")
+    })
+    public ResponseEntity<BulkRegisterResponse> registerBulk(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(userImportService.importUsers(request.getInputStream()));
     }
-}
\ No newline at end of file
+}
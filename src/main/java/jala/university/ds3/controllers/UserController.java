@@ -1,16 +1,40 @@
 package jala.university.ds3.controllers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.UUID;
 import java.util.Optional;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.observation.ObservationRegistry;
+import jala.university.ds3.Exceptions.GeneralExceptions;
 import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserIdLayout;
+import jala.university.ds3.domain.user.UserResponseDTO;
+import jala.university.ds3.dto.UserPage;
+import jala.university.ds3.infra.security.PrincipalCache;
+import jala.university.ds3.infra.security.RequestLimitFilter;
+import jala.university.ds3.infra.security.TokenRevocationRegistry;
+import jala.university.ds3.infra.tracing.ServerTiming;
 import jala.university.ds3.repositories.UserRepository;
 import jala.university.ds3.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -21,13 +45,31 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 @SecurityRequirement(name = "bearerAuth")
 public class UserController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final UserRepository userRepository;
     private final UserService userService;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final ObjectWriter userWriter;
+    private final ObservationRegistry observationRegistry;
+    private final UserIdLayout idLayout;
 
     @Autowired
-    public UserController(UserRepository userRepository, UserService userService) {
+    public UserController(UserRepository userRepository, UserService userService,
+                          PrincipalCache principalCache, TokenRevocationRegistry revocationRegistry,
+                          ObjectMapper objectMapper, ObservationRegistry observationRegistry,
+                          @Value("${app.users.binary-id:false}") boolean binaryId) {
         this.userRepository = userRepository;
         this.userService = userService;
+        this.principalCache = principalCache;
+        this.revocationRegistry = revocationRegistry;
+        // Resolved once; per-value flushing is off so the stream is written in buffer-sized chunks
+        this.userWriter = objectMapper.writerFor(UserResponseDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.observationRegistry = observationRegistry;
+        this.idLayout = UserIdLayout.of(binaryId);
     }
 
     @GetMapping("/currentUser")
@@ -36,11 +78,12 @@ public class UserController {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentLogin = authentication.getName();
 
-        Optional<User> userOptional = userRepository.findByLogin(currentLogin);
+        Optional<UserResponseDTO> userOptional = userRepository.findResponseByLogin(currentLogin);
 
         if (userOptional.isPresent()) {
-            User safeUser = createSafeUser(userOptional.get());
-            return ResponseEntity.ok(safeUser);
+            // With an ETag on a 200 ResponseEntity, Spring answers a matching If-None-Match with 304 and no body
+            UserResponseDTO user = userOptional.get();
+            return ResponseEntity.ok().eTag(UserETags.of(user)).body(user);
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         }
@@ -48,7 +91,7 @@ public class UserController {
 
     @GetMapping("/id")
     @Operation(summary = "Get user by ID",
-            description = "Returns the user based on provided ID (accepts UUID or String)")
+            description = "Returns the user based on provided ID (UUID string)")
     public ResponseEntity<?> getById(@RequestParam("id") String idParam) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentLogin = authentication.getName();
@@ -56,54 +99,73 @@ public class UserController {
         boolean isAdmin = authentication.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
 
-        Optional<User> userOptional = findUserById(idParam);
+        Optional<UserResponseDTO> userOptional = ServerTiming.stage("db", observationRegistry)
+                .observe(() -> normalizeId(idParam).flatMap(userRepository::findResponseById));
 
         if (userOptional.isPresent()) {
-            User user = userOptional.get();
+            UserResponseDTO user = userOptional.get();
 
-            if (!user.getLogin().equals(currentLogin) && !isAdmin) {
+            if (!user.login().equals(currentLogin) && !isAdmin) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
             }
 
-            User safeUser = createSafeUser(user);
-            return ResponseEntity.ok(safeUser);
+            return ResponseEntity.ok().eTag(UserETags.of(user)).body(user);
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         }
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Update user", description = "Updates user data (name and password)")
+    @Operation(summary = "Update user",
+            description = "Updates user data (name and password). With If-Match set to the ETag of GET /users/id, "
+                    + "the update only applies if the user was not modified since; otherwise 412 is returned")
     public ResponseEntity<?> updateUser(@PathVariable("id") String idParam,
-                                        @RequestBody User updatedUser) {
+                                        @RequestBody User updatedUser,
+                                        WebRequest webRequest) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentLogin = authentication.getName();
 
-        Optional<User> userOptional = findUserById(idParam);
-
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-
-            boolean isAdmin = authentication.getAuthorities().stream()
-                    .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
-
-            if (!user.getLogin().equals(currentLogin) && !isAdmin) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
-            }
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
+        boolean passwordChanged = updatedUser.getPassword() != null && !updatedUser.getPassword().trim().isEmpty();
 
-            // Update allowed fields only
-            if (updatedUser.getName() != null && !updatedUser.getName().trim().isEmpty()) {
-                user.setName(updatedUser.getName().trim());
-            }
+        Optional<User> savedUser;
+        try {
+            // Read and write in one transaction on the primary; the UPDATE matches on the
+            // version read there, so a concurrent write fails it here
+            savedUser = normalizeId(idParam).flatMap(id -> userService.updateUser(id, user -> {
+                if (!user.getLogin().equals(currentLogin) && !isAdmin) {
+                    throw new GeneralExceptions("Access denied", HttpStatus.FORBIDDEN);
+                }
+
+                // Evaluates If-Match (and If-Unmodified-Since) against the version just read
+                if (webRequest.checkNotModified(UserETags.of(UserResponseDTO.from(user)))) {
+                    throw new GeneralExceptions("User was modified since it was read", HttpStatus.PRECONDITION_FAILED);
+                }
+
+                // Update allowed fields only
+                if (updatedUser.getName() != null && !updatedUser.getName().trim().isEmpty()) {
+                    user.setName(updatedUser.getName().trim());
+                }
+                if (passwordChanged) {
+                    user.setPassword(updatedUser.getPassword());
+                }
+            }));
+        } catch (OptimisticLockingFailureException e) {
+            boolean conditional = webRequest.getHeader(HttpHeaders.IF_MATCH) != null;
+            throw new GeneralExceptions("User was modified concurrently",
+                    conditional ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+        }
 
-            if (updatedUser.getPassword() != null && !updatedUser.getPassword().trim().isEmpty()) {
-                user.setPassword(updatedUser.getPassword());
+        if (savedUser.isPresent()) {
+            // Evicted after the commit, so a concurrent read cannot cache the old row again
+            principalCache.evict(savedUser.get().getLogin());
+            if (passwordChanged) {
+                revocationRegistry.revoke(savedUser.get().getLogin());
             }
 
-            User savedUser = userRepository.save(user);
-            User safeUser = createSafeUser(savedUser);
-
-            return ResponseEntity.ok(safeUser);
+            UserResponseDTO response = UserResponseDTO.from(savedUser.get());
+            return ResponseEntity.ok().eTag(UserETags.of(response)).body(response);
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         }
@@ -123,17 +185,16 @@ public class UserController {
                     .body("Only administrators can delete users");
         }
 
-        Optional<User> userOptional = findUserById(idParam);
-
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-
+        Optional<User> deletedUser = normalizeId(idParam).flatMap(id -> userService.deleteUser(id, user -> {
             if (user.getLogin().equals(currentLogin)) {
-                return ResponseEntity.status(HttpStatus.CONFLICT)
-                        .body("Cannot delete your own account");
+                throw new GeneralExceptions("Cannot delete your own account", HttpStatus.CONFLICT);
             }
+        }));
 
-            userRepository.delete(user);
+        if (deletedUser.isPresent()) {
+            User user = deletedUser.get();
+            principalCache.evict(user.getLogin());
+            revocationRegistry.revoke(user.getLogin());
             return ResponseEntity.ok()
                     .body("User with login '" + user.getLogin() + "' has been deleted");
         } else {
@@ -141,51 +202,127 @@ public class UserController {
         }
     }
 
+    @GetMapping(params = {"!after", "!limit", "!sort"})
+    @Operation(summary = "List users",
+            description = "Streams all users (administrators only) as a JSON array, "
+                    + "or as NDJSON with Accept: application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> getAllUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        requireAdmin("Only administrators can list all users");
+        // Streaming time follows the table size, so it says nothing about overload
+        webRequest.setAttribute(RequestLimitFilter.IGNORE_LATENCY_ATTRIBUTE, true, WebRequest.SCOPE_REQUEST);
+
+        boolean ndjson = accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+
+        // Streaming bodies bypass Spring's automatic If-None-Match handling, so check here:
+        // an unchanged listing costs one aggregate query instead of a full table read.
+        // checkNotModified also sets the ETag header, so the response entity must not repeat it
+        String eTag = UserETags.of(userRepository.findUsersFingerprint(), ndjson ? "ndjson" : "json");
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(streamUsers(ndjson));
+    }
+
     @GetMapping
-    @Operation(summary = "List users", description = "Lists all users (administrators only)")
-    public ResponseEntity<?> getAllUsers() {
+    @Operation(summary = "List users page",
+            description = "Returns one keyset page of users ordered by id, or by login with sort=login "
+                    + "(administrators only). Pass the returned nextCursor as 'after' to get the next page")
+    public ResponseEntity<?> getUsersPage(@RequestParam(value = "after", required = false) String after,
+                                          @RequestParam(value = "limit", required = false) Integer limit,
+                                          @RequestParam(value = "sort", defaultValue = "id") String sort) {
+        requireAdmin("Only administrators can list all users");
+
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        boolean byLogin = sort.equals("login");
+        if (!byLogin && !sort.equals("id")) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("sort must be id or login");
+        }
+
+        // The cursor is the last id or login of the previous page; logins are unique, so either is a full key
+        Optional<String> cursor = after == null || byLogin ? Optional.ofNullable(after) : normalizeId(after);
+        if (after != null && cursor.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+
+        List<UserResponseDTO> users = byLogin
+                ? cursor.map(login -> userRepository.findResponsesAfterLogin(login, Limit.of(pageSize)))
+                        .orElseGet(() -> userRepository.findResponsesOrderByLogin(Limit.of(pageSize)))
+                : cursor.map(id -> userRepository.findResponsesAfterId(id, Limit.of(pageSize)))
+                        .orElseGet(() -> userRepository.findResponsesOrderById(Limit.of(pageSize)));
+
+        String nextCursor = null;
+        if (users.size() == pageSize) {
+            UserResponseDTO last = users.get(users.size() - 1);
+            nextCursor = byLogin ? last.login() : last.id();
+        }
+        return ResponseEntity.ok()
+                .eTag(UserETags.of(users, nextCursor))
+                .body(new UserPage(users, nextCursor));
+    }
+
+    /**
+     * Writes users straight from the repository stream, either as one JSON array
+     * or as newline-delimited JSON. Memory use does not grow with the table size.
+     */
+    private StreamingResponseBody streamUsers(boolean ndjson) {
+        return outputStream -> {
+            try (JsonGenerator generator = userWriter.createGenerator(outputStream)) {
+                if (ndjson) {
+                    // Lines are separated explicitly below
+                    generator.setRootValueSeparator(null);
+                }
+                try (SequenceWriter users = ndjson
+                        ? userWriter.writeValues(generator)
+                        : userWriter.writeValuesAsArray(generator)) {
+                    userService.forEachUser(user -> {
+                        try {
+                            users.write(user);
+                            if (ndjson) {
+                                generator.writeRaw('\n');
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+        };
+    }
+
+    private void requireAdmin(String message) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         boolean isAdmin = authentication.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
 
         if (!isAdmin) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body("Only administrators can list all users");
+            throw new GeneralExceptions(message, HttpStatus.FORBIDDEN);
         }
-
-        return ResponseEntity.ok(
-                userRepository.findAll().stream()
-                        .map(this::createSafeUser)
-                        .toList()
-        );
     }
 
     /**
-     * Utility method to find user by flexible ID
-     * Accepts UUID or direct String
+     * Id to look up. The VARCHAR layout is matched as given, since rows written by the
+     * legacy system may have ids that are not UUIDs. BINARY(16) only holds UUIDs (V3
+     * refuses to convert anything else), so there it is the canonical UUID string, or
+     * empty when the value cannot match a row.
      */
-    private Optional<User> findUserById(String idParam) {
-        // First try as UUID
+    private Optional<String> normalizeId(String idParam) {
+        if (idLayout == UserIdLayout.VARCHAR) {
+            return Optional.of(idParam);
+        }
         try {
-            UUID uuid = UUID.fromString(idParam);
-            return userRepository.findById(uuid.toString());
+            return Optional.of(UUID.fromString(idParam).toString());
         } catch (IllegalArgumentException e) {
-            // If not valid UUID, try as direct String
-            return userRepository.findById(idParam);
+            return Optional.empty();
         }
     }
-
-    /**
-     * Creates a safe copy of user without sensitive information
-     */
-    private User createSafeUser(User user) {
-        User safeUser = new User();
-        safeUser.setId(user.getId());
-        safeUser.setName(user.getName());
-        safeUser.setLogin(user.getLogin());
-        safeUser.setRole(user.getRole());
-        // Password is intentionally not set (remains null)
-        return safeUser;
-    }
 }
\ No newline at end of file
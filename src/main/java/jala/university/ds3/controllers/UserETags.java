@@ -0,0 +1,56 @@
+package jala.university.ds3.controllers;
+
+import jala.university.ds3.domain.user.UserResponseDTO;
+import jala.university.ds3.repositories.UserRepository.UsersFingerprint;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Strong ETags for user representations.
+ * <p>
+ * A user's tag combines its version with a hash of the serialized fields: the version
+ * catches every update made through the API (password changes included), the hash catches
+ * legacy writes that leave the version alone. The same tag is compared for If-Match.
+ */
+final class UserETags {
+
+    private UserETags() {
+    }
+
+    static String of(UserResponseDTO user) {
+        return quote(user.version() + "-" + DigestUtils.md5DigestAsHex(fields(user).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Tag of one listing page: changes when any user on it or the cursor changes.
+     */
+    static String of(List<UserResponseDTO> users, String nextCursor) {
+        StringBuilder content = new StringBuilder();
+        for (UserResponseDTO user : users) {
+            content.append(user.version()).append('\n').append(fields(user)).append('\n');
+        }
+        content.append(nextCursor);
+        return quote(DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Tag of the full listing in one representation (JSON array or NDJSON).
+     */
+    static String of(UsersFingerprint fingerprint, String representation) {
+        long lastUpdated = fingerprint.getLastUpdated() == null
+                ? 0
+                : fingerprint.getLastUpdated().toInstant(ZoneOffset.UTC).toEpochMilli();
+        return quote(representation + "-" + fingerprint.getCount() + "-" + lastUpdated);
+    }
+
+    private static String fields(UserResponseDTO user) {
+        return user.id() + '\n' + user.name() + '\n' + user.login() + '\n' + user.role();
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
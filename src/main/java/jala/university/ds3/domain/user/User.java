@@ -1,17 +1,22 @@
 package jala.university.ds3.domain.user;
 
 import jakarta.persistence.*;
+import jala.university.ds3.utils.UuidV7;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.Type;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.UUID;
 
 @Data
 @Builder
@@ -19,21 +24,38 @@ import java.util.UUID;
 @AllArgsConstructor
 @Entity
 @Table(name = "users")
+// Second-level cache regions are configured in hibernate-cache.conf
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-login")
 public class User implements UserDetails {
 
+    // UUIDv7 string in Java; VARCHAR(36) or BINARY(16) in the database, see UserIdLayout
     @Id
-    @Column(name = "id", length = 36)
+    @Type(UserIdType.class)
+    @Column(name = "id")
     private String id;
 
     private String name;
+
+    // Unique (login_UNIQUE); UserRepository.findByLogin resolves it through the natural-id cache
+    @NaturalId(mutable = true)
     private String login;
+
     private String password;
 
     @Enumerated(EnumType.STRING)
     private UserRole role;
 
+    // Optimistic lock: updates check and increment it; null until the user is persisted,
+    // which also lets save() tell new users from existing ones without a select
+    @Version
+    private Long version;
+
+    // users.updated_at is maintained by the database for change detection (UserChangeDetector) and is not mapped
+
     public User(String name, String login, String encryptedPassword, UserRole role) {
-        this.id = UUID.randomUUID().toString();
+        this.id = UuidV7.randomUUID().toString();
         this.name = name;
         this.login = login;
         this.password = encryptedPassword;
@@ -43,7 +65,7 @@ public class User implements UserDetails {
     @PrePersist
     public void generateId() {
         if (this.id == null) {
-            this.id = UUID.randomUUID().toString();
+            this.id = UuidV7.randomUUID().toString();
         }
     }
 
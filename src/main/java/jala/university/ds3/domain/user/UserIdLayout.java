@@ -0,0 +1,54 @@
+package jala.university.ds3.domain.user;
+
+import java.sql.Types;
+
+/**
+ * How users.id is stored. VARCHAR(36) is the layout the legacy system reads and writes
+ * and stays the default; BINARY(16) is opt-in through app.users.binary-id, which also
+ * lets migration V3 convert the column. Ids are UUIDv7 strings either way, so inserts
+ * arrive in key order.
+ */
+public enum UserIdLayout {
+
+    VARCHAR(Types.VARCHAR),
+    BINARY(Types.BINARY);
+
+    /** Hibernate setting read by UserIdType; application.properties maps app.users.binary-id to it. */
+    public static final String HIBERNATE_SETTING = "ds3.users.binary_id";
+
+    /** Flyway placeholder read by V3__Users_binary_id. */
+    public static final String FLYWAY_PLACEHOLDER = "users-binary-id";
+
+    private static final UuidBinaryConverter CONVERTER = new UuidBinaryConverter();
+
+    private final int sqlType;
+
+    UserIdLayout(int sqlType) {
+        this.sqlType = sqlType;
+    }
+
+    public static UserIdLayout of(boolean binary) {
+        return binary ? BINARY : VARCHAR;
+    }
+
+    public int sqlType() {
+        return sqlType;
+    }
+
+    /**
+     * JDBC parameter value for an id in this layout.
+     */
+    public Object toDatabase(String id) {
+        return this == BINARY ? CONVERTER.convertToDatabaseColumn(id) : id;
+    }
+
+    /**
+     * Id from a users.id value read with getObject, whichever layout the column has.
+     */
+    public static String fromDatabase(Object value) {
+        if (value instanceof byte[] bytes) {
+            return CONVERTER.convertToEntityAttribute(bytes);
+        }
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package jala.university.ds3.domain.user;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.type.spi.TypeConfiguration;
+import org.hibernate.type.spi.TypeConfigurationAware;
+import org.hibernate.usertype.UserType;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * Hibernate mapping of a UUID string id to users.id in the configured {@link UserIdLayout}.
+ * JPA attribute converters are not applied to @Id attributes, so the id needs a UserType.
+ */
+public class UserIdType implements UserType<String>, TypeConfigurationAware {
+
+    private TypeConfiguration typeConfiguration;
+    private UserIdLayout layout = UserIdLayout.VARCHAR;
+
+    @Override
+    public TypeConfiguration getTypeConfiguration() {
+        return typeConfiguration;
+    }
+
+    /**
+     * Called by Hibernate before the column type is resolved, so ddl validation
+     * checks the layout that is actually configured.
+     */
+    @Override
+    public void setTypeConfiguration(TypeConfiguration typeConfiguration) {
+        this.typeConfiguration = typeConfiguration;
+        boolean binary = typeConfiguration.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSetting(UserIdLayout.HIBERNATE_SETTING, StandardConverters.BOOLEAN, false);
+        this.layout = UserIdLayout.of(binary);
+    }
+
+    @Override
+    public int getSqlType() {
+        return layout.sqlType();
+    }
+
+    @Override
+    public Class<String> returnedClass() {
+        return String.class;
+    }
+
+    @Override
+    public boolean equals(String x, String y) {
+        return Objects.equals(x, y);
+    }
+
+    @Override
+    public int hashCode(String x) {
+        return Objects.hashCode(x);
+    }
+
+    @Override
+    public String nullSafeGet(ResultSet rs, int position, SharedSessionContractImplementor session, Object owner)
+            throws SQLException {
+        return UserIdLayout.fromDatabase(rs.getObject(position));
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, String value, int index, SharedSessionContractImplementor session)
+            throws SQLException {
+        if (value == null) {
+            st.setNull(index, layout.sqlType());
+        } else {
+            st.setObject(index, layout.toDatabase(value), layout.sqlType());
+        }
+    }
+
+    @Override
+    public String deepCopy(String value) {
+        return value;
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(String value) {
+        return value;
+    }
+
+    @Override
+    public String assemble(Serializable cached, Object owner) {
+        return (String) cached;
+    }
+}
@@ -0,0 +1,32 @@
+package jala.university.ds3.domain.user;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Read-only view of a user. Used both as a JPA projection (the password
+ * column is never selected) and as the response body of the user endpoints.
+ */
+@Schema(description = "Public user data")
+public record UserResponseDTO(
+        @Schema(description = "User id", example = "0b8f7c2e-5a1d-4c7e-9f3a-2d6e8b1c4a90")
+        String id,
+
+        @Schema(description = "User full name", example = "John Silva")
+        String name,
+
+        @Schema(description = "Unique user login", example = "johnsilva")
+        String login,
+
+        @Schema(description = "User role in the system", example = "USER")
+        UserRole role,
+
+        // Sent as the ETag header, not in the body
+        @JsonIgnore
+        @Schema(hidden = true)
+        Long version
+) {
+    public static UserResponseDTO from(User user) {
+        return new UserResponseDTO(user.getId(), user.getName(), user.getLogin(), user.getRole(), user.getVersion());
+    }
+}
@@ -0,0 +1,13 @@
+package jala.university.ds3.dto;
+
+import java.util.List;
+
+public record BulkRegisterResponse(int created, int rejected, List<BulkRegisterResult> results) {
+
+    public static BulkRegisterResponse of(List<BulkRegisterResult> results) {
+        int created = (int) results.stream()
+                .filter(result -> result.status() == BulkRegisterResult.Status.CREATED)
+                .count();
+        return new BulkRegisterResponse(created, results.size() - created, results);
+    }
+}
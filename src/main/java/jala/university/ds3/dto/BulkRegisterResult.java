@@ -0,0 +1,30 @@
+package jala.university.ds3.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Outcome of one item of a bulk registration, in input order.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkRegisterResult(int index, String login, Status status, String id, List<String> errors) {
+
+    public enum Status {
+        CREATED,
+        CONFLICT,
+        INVALID
+    }
+
+    public static BulkRegisterResult created(int index, String login, String id) {
+        return new BulkRegisterResult(index, login, Status.CREATED, id, null);
+    }
+
+    public static BulkRegisterResult conflict(int index, String login) {
+        return new BulkRegisterResult(index, login, Status.CONFLICT, null, List.of("Login already exists"));
+    }
+
+    public static BulkRegisterResult invalid(int index, String login, List<String> errors) {
+        return new BulkRegisterResult(index, login, Status.INVALID, null, errors);
+    }
+}
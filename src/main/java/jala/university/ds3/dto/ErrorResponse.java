@@ -0,0 +1,21 @@
+package jala.university.ds3.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Error body of the authentication endpoints: a single error, or the list of
+ * validation messages. The unused field is left out of the JSON.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ErrorResponse(String error, List<String> errors) {
+
+    public static ErrorResponse of(String error) {
+        return new ErrorResponse(error, null);
+    }
+
+    public static ErrorResponse of(List<String> errors) {
+        return new ErrorResponse(null, errors);
+    }
+}
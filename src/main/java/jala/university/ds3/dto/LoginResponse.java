@@ -0,0 +1,10 @@
+package jala.university.ds3.dto;
+
+import jala.university.ds3.domain.user.User;
+
+public record LoginResponse(String token, String type, UserSummary user) {
+
+    public static LoginResponse bearer(String token, User user) {
+        return new LoginResponse(token, "Bearer", UserSummary.from(user));
+    }
+}
@@ -0,0 +1,4 @@
+package jala.university.ds3.dto;
+
+public record RegisterResponse(String message, UserSummary user) {
+}
@@ -0,0 +1,11 @@
+package jala.university.ds3.dto;
+
+import jala.university.ds3.domain.user.UserResponseDTO;
+
+import java.util.List;
+
+/**
+ * One keyset page of users. nextCursor is null on the last page.
+ */
+public record UserPage(List<UserResponseDTO> items, String nextCursor) {
+}
@@ -0,0 +1,14 @@
+package jala.university.ds3.dto;
+
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+
+/**
+ * The user part of login and registration responses.
+ */
+public record UserSummary(String login, String name, UserRole role) {
+
+    public static UserSummary from(User user) {
+        return new UserSummary(user.getLogin(), user.getName(), user.getRole());
+    }
+}
@@ -0,0 +1,133 @@
+package jala.university.ds3.infra.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replication lag in the background and decides whether read-only
+ * transactions may use the replica. The replica counts as unusable until the first
+ * successful check, when it falls behind more than maxLag, when the lag cannot be
+ * read, and after a failed connection attempt until the next check succeeds.
+ * Published as "datasource.replica.lag" and "datasource.replica.usable".
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String MYSQL_LAG_COLUMN = "Seconds_Behind_Source";
+
+    private final DataSource replica;
+    private final long maxLagMillis;
+    private final Duration checkInterval;
+    private final String lagQuery;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean usable;
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(DataSource replica, Duration maxLag, Duration checkInterval, String lagQuery,
+                             MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.maxLagMillis = maxLag.toMillis();
+        this.checkInterval = checkInterval;
+        this.lagQuery = StringUtils.hasText(lagQuery) ? lagQuery : null;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-lag-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lagMillis / 1000.0)
+                .description("Last measured replication lag, -1 when unknown")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, monitor -> monitor.usable ? 1 : 0)
+                .description("1 while read-only transactions are routed to the replica")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    /**
+     * Called when a connection to the replica could not be opened; reads stay on the
+     * primary until a check gets through again.
+     */
+    public void markUnavailable(SQLException cause) {
+        if (usable) {
+            log.warn("Replica unavailable, routing reads to the primary: {}", cause.getMessage());
+        }
+        usable = false;
+    }
+
+    void check() {
+        boolean wasUsable = usable;
+        try (Connection connection = replica.getConnection()) {
+            lagMillis = measureLagMillis(connection);
+            usable = lagMillis >= 0 && lagMillis <= maxLagMillis;
+            if (wasUsable && !usable) {
+                log.warn("Replica lag {} ms exceeds {} ms, routing reads to the primary", lagMillis, maxLagMillis);
+            } else if (!wasUsable && usable) {
+                log.info("Replica in sync (lag {} ms), routing read-only transactions to it", lagMillis);
+            }
+        } catch (SQLException | RuntimeException e) {
+            lagMillis = -1;
+            usable = false;
+            if (wasUsable) {
+                log.warn("Replica check failed, routing reads to the primary: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the lag in milliseconds, or -1 when replication is not running
+     */
+    private long measureLagMillis(Connection connection) throws SQLException {
+        if (lagQuery != null) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                return rs.next() ? secondsToMillis(rs, 1) : -1;
+            }
+        }
+        if (!"MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+            // No portable way to read the lag; getting a connection is the check
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+            // No row: the server is not replicating from anywhere, so it cannot lag
+            return rs.next() ? secondsToMillis(rs, rs.findColumn(MYSQL_LAG_COLUMN)) : 0;
+        }
+    }
+
+    private static long secondsToMillis(ResultSet rs, int column) throws SQLException {
+        double seconds = rs.getDouble(column);
+        return rs.wasNull() ? -1 : Math.round(seconds * 1000);
+    }
+}
@@ -0,0 +1,35 @@
+package jala.university.ds3.infra.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Read replica used by read-only transactions, under "api.datasource.replica".
+ * Pool settings go under "api.datasource.replica.hikari", like spring.datasource.hikari
+ * for the primary.
+ *
+ * <pre>
+ * api.datasource.replica.url=jdbc:mysql://replica:3306/sd3?useCursorFetch=true
+ * api.datasource.replica.username=appuser_ro
+ * api.datasource.replica.password=...
+ * api.datasource.replica.hikari.maximum-pool-size=20
+ * </pre>
+ *
+ * @param maxLag        reads go back to the primary while the replica is further behind than this
+ * @param checkInterval how often the lag is measured
+ * @param lagQuery      SQL returning the lag in seconds; when blank, MySQL replicas use
+ *                      SHOW REPLICA STATUS and other databases only get a connectivity check
+ */
+@ConfigurationProperties("api.datasource.replica")
+public record ReplicaProperties(
+        String url,
+        String username,
+        String password,
+        String driverClassName,
+        @DefaultValue("5s") Duration maxLag,
+        @DefaultValue("2s") Duration checkInterval,
+        String lagQuery
+) {
+}
@@ -0,0 +1,18 @@
+package jala.university.ds3.infra.json;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfiguration {
+
+    /**
+     * Property access and record construction through generated lambdas instead of
+     * reflection. Boot registers Module beans with the shared ObjectMapper.
+     */
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,53 @@
+package jala.university.ds3.infra.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Adds the unique index on users.login used by every findByLogin lookup and drops
+ * the id_UNIQUE index, which duplicates the primary key.
+ * Written in Java because databases created from the README already have login_UNIQUE
+ * and MySQL has no CREATE INDEX IF NOT EXISTS.
+ */
+public class V2__Users_login_index extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        Set<String> indexes = indexNames(connection);
+
+        try (Statement statement = connection.createStatement()) {
+            if (!indexes.contains("login_unique")) {
+                statement.execute("CREATE UNIQUE INDEX login_UNIQUE ON users (login)");
+            }
+            if (indexes.contains("id_unique")) {
+                statement.execute("DROP INDEX id_UNIQUE ON users");
+            }
+        }
+    }
+
+    private static Set<String> indexNames(Connection connection) throws SQLException {
+        Set<String> names = new HashSet<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String table : new String[]{"users", "USERS"}) {
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, table, false, false)) {
+                while (rs.next()) {
+                    String name = rs.getString("INDEX_NAME");
+                    if (name != null) {
+                        names.add(name.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+        return names;
+    }
+}
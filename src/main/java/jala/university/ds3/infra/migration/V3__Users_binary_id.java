@@ -0,0 +1,152 @@
+package jala.university.ds3.infra.migration;
+
+import jala.university.ds3.domain.user.UserIdLayout;
+import jala.university.ds3.domain.user.UuidBinaryConverter;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Moves users.id from VARCHAR(36) to BINARY(16), only when app.users.binary-id is set
+ * (Flyway placeholder users-binary-id). The legacy system writes this table directly and
+ * has to switch to UUID_TO_BIN/BIN_TO_UUID first, so the default leaves the column alone.
+ * The layout has to be chosen before the first migration: once applied, V3 does not run again.
+ * <p>
+ * MySQL commits every DDL statement, so each step checks the current state first and a
+ * failed run can be repaired and rerun from where it stopped. The primary key moves to
+ * the new column in one statement on MySQL, so the table never goes without one.
+ * Existing ids keep their value; rows are converted in Java so the same migration runs
+ * on MySQL (no UUID_TO_BIN before 8.0) and on H2.
+ */
+public class V3__Users_binary_id extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        String binary = context.getConfiguration().getPlaceholders().get(UserIdLayout.FLYWAY_PLACEHOLDER);
+        if (!Boolean.parseBoolean(binary)) {
+            return;
+        }
+
+        Connection connection = context.getConnection();
+        Map<String, Integer> columns = columnTypes(connection);
+        if (columns.containsKey("id") && !isBinary(columns.get("id"))) {
+            if (!columns.containsKey("id_bin")) {
+                execute(connection, "ALTER TABLE users ADD COLUMN id_bin BINARY(16)");
+            }
+            fillBinaryIds(connection);
+            execute(connection, "ALTER TABLE users MODIFY COLUMN id_bin BINARY(16) NOT NULL");
+            movePrimaryKeyToBinaryId(connection);
+            execute(connection, "ALTER TABLE users DROP COLUMN id");
+            columns.remove("id");
+        }
+        if (!columns.containsKey("id")) {
+            execute(connection, "ALTER TABLE users RENAME COLUMN id_bin TO id");
+        }
+        if (primaryKey(connection).isEmpty()) {
+            // Only left behind by a non-MySQL run that stopped between the two key statements
+            execute(connection, "ALTER TABLE users ADD PRIMARY KEY (id)");
+        }
+    }
+
+    private static void fillBinaryIds(Connection connection) throws SQLException {
+        UuidBinaryConverter converter = new UuidBinaryConverter();
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery("SELECT id FROM users WHERE id_bin IS NULL");
+             PreparedStatement update = connection.prepareStatement("UPDATE users SET id_bin = ? WHERE id = ?")) {
+            int pending = 0;
+            while (rs.next()) {
+                String id = rs.getString(1);
+                try {
+                    update.setBytes(1, converter.convertToDatabaseColumn(id));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalStateException("users.id '" + id + "' is not a UUID and cannot be converted", e);
+                }
+                update.setString(2, id);
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    private static void movePrimaryKeyToBinaryId(Connection connection) throws SQLException {
+        List<String> primaryKey = primaryKey(connection);
+        if (primaryKey.equals(List.of("id_bin"))) {
+            return;
+        }
+        // H2 keeps id_UNIQUE (dropped by V7) as a constraint on the primary key index
+        String idUnique = V7__Users_drop_id_unique.idUniqueConstraint(connection);
+        if (idUnique != null) {
+            execute(connection, "ALTER TABLE users DROP CONSTRAINT " + idUnique);
+        }
+        boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+        if (mysql) {
+            execute(connection, "ALTER TABLE users " + (primaryKey.isEmpty() ? "" : "DROP PRIMARY KEY, ")
+                    + "ADD PRIMARY KEY (id_bin)");
+        } else {
+            if (!primaryKey.isEmpty()) {
+                execute(connection, "ALTER TABLE users DROP PRIMARY KEY");
+            }
+            execute(connection, "ALTER TABLE users ADD PRIMARY KEY (id_bin)");
+        }
+    }
+
+    private static boolean isBinary(int type) {
+        return type == Types.BINARY || type == Types.VARBINARY;
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static Map<String, Integer> columnTypes(Connection connection) throws SQLException {
+        Map<String, Integer> columns = new HashMap<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String table : new String[]{"users", "USERS"}) {
+            try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, table, null)) {
+                while (rs.next()) {
+                    columns.put(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT), rs.getInt("DATA_TYPE"));
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static List<String> primaryKey(Connection connection) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String table : new String[]{"users", "USERS"}) {
+            try (ResultSet rs = metaData.getPrimaryKeys(connection.getCatalog(), null, table)) {
+                while (rs.next()) {
+                    String column = rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT);
+                    // Both spellings match on case-insensitive table names
+                    if (!columns.contains(column)) {
+                        columns.add(column);
+                    }
+                }
+            }
+        }
+        return columns;
+    }
+}
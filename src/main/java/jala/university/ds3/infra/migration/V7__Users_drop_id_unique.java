@@ -0,0 +1,37 @@
+package jala.university.ds3.infra.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Drops id_UNIQUE, which duplicates the primary key. V2 already drops it where it
+ * shows up as an index (MySQL); H2 reports it only as a constraint, so it survived there.
+ */
+public class V7__Users_drop_id_unique extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        String constraint = idUniqueConstraint(connection);
+        if (constraint != null) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE users DROP CONSTRAINT " + constraint);
+            }
+        }
+    }
+
+    static String idUniqueConstraint(Connection connection) throws SQLException {
+        String sql = "SELECT constraint_name FROM information_schema.table_constraints "
+                + "WHERE LOWER(table_name) = 'users' AND constraint_type = 'UNIQUE' "
+                + "AND LOWER(constraint_name) = 'id_unique'";
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package jala.university.ds3.infra.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose cost factor is picked at startup: the highest strength
+ * (within bounds) whose hash time stays under the target on this hardware.
+ * Stored hashes with a lower cost report upgradeEncoding, so the authentication
+ * provider rehashes them on the next successful login.
+ * Hash and verify times are published as "security.password.hash".
+ */
+public class AdaptiveBCryptPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBCryptPasswordEncoder.class);
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+    private static final int CALIBRATION_SAMPLES = 3;
+    // BCrypt costs are 4 to 31
+    private static final int MIN_COST = 4;
+    private static final int MAX_COST = 31;
+
+    private final int strength;
+    private final BCryptPasswordEncoder delegate;
+    private final MeterRegistry meterRegistry;
+    private final Timer encodeTimer;
+    // Indexed by cost, so verifying does not look meters up in the registry
+    private final Timer[] matchTimers = new Timer[MAX_COST + 1];
+
+    /**
+     * @param fixedStrength cost to use as is; 0 or less calibrates against targetHashTime
+     */
+    public AdaptiveBCryptPasswordEncoder(int fixedStrength, Duration targetHashTime,
+                                         int minStrength, int maxStrength, MeterRegistry meterRegistry) {
+        this.strength = fixedStrength > 0
+                ? fixedStrength
+                : calibrate(targetHashTime, minStrength, maxStrength);
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.meterRegistry = meterRegistry;
+        this.encodeTimer = timer("encode", strength);
+        for (int cost = MIN_COST; cost <= MAX_COST; cost++) {
+            matchTimers[cost] = timer("matches", cost);
+        }
+
+        Gauge.builder("security.password.hash.strength", this, encoder -> encoder.strength)
+                .description("BCrypt cost factor used for new hashes")
+                .register(meterRegistry);
+        log.info("BCrypt strength {} ({})", strength, fixedStrength > 0 ? "configured" : "calibrated to " + targetHashTime);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encodeTimer.record(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        int cost = costOf(encodedPassword);
+        if (cost < MIN_COST || cost > MAX_COST) {
+            // Not a valid BCrypt hash; the delegate logs and rejects it
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+        // The cost comes from the stored hash, so verify time depends on it, not on the current strength
+        return matchTimers[cost].record(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Only lower costs are re-encoded. A calibration that picks a lower strength, e.g. on a
+     * slower or busier host, must not weaken hashes that are already stronger.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = costOf(encodedPassword);
+        return cost >= 0 && cost < strength;
+    }
+
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null) {
+            return -1;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    private Timer timer(String operation, int cost) {
+        return Timer.builder("security.password.hash")
+                .description("BCrypt hash and verify time")
+                .tag("operation", operation)
+                .tag("strength", Integer.toString(cost))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Each extra cost step doubles the work, so one measurement at the minimum is enough.
+     */
+    static int calibrate(Duration target, int minStrength, int maxStrength) {
+        long nanos = medianHashNanos(minStrength);
+        int strength = minStrength;
+        while (strength < maxStrength && nanos * 2 <= target.toNanos()) {
+            strength++;
+            nanos *= 2;
+        }
+        return strength;
+    }
+
+    private static long medianHashNanos(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode("calibration-warmup");
+
+        long[] samples = new long[CALIBRATION_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration-" + i);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+}
@@ -0,0 +1,109 @@
+package jala.university.ds3.infra.security;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive concurrency limit (additive increase, multiplicative decrease).
+ * A request completing under the latency threshold while the limit is at least
+ * half used raises the limit by one; a slow request, a 5xx or a timeout multiplies
+ * it by the backoff ratio. So the limit follows the concurrency the backend
+ * sustains without its latency degrading.
+ * <p>
+ * The limit shrinks at most once per round trip: requests that started before the
+ * last decrease were admitted under the old limit, so their slow or failed
+ * completions report the same overload and do not shrink it again.
+ */
+public class AimdConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // nanoClock time of the last decrease, null before the first one
+    private final AtomicReference<Long> lastBackoff = new AtomicReference<>();
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                  double backoffRatio, Duration latencyThreshold) {
+        this(initialLimit, minLimit, maxLimit, backoffRatio, latencyThreshold, System::nanoTime);
+    }
+
+    AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                           double backoffRatio, Duration latencyThreshold, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit settings");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.nanoClock = nanoClock;
+        this.limit = new AtomicInteger(Math.min(maxLimit, Math.max(minLimit, initialLimit)));
+    }
+
+    /**
+     * @return true when the request may run; it must then call {@link #release}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param startNanos {@link System#nanoTime()} when the request got its slot
+     * @param dropped    the request failed in a way that signals overload (5xx, timeout)
+     */
+    public void release(long startNanos, boolean dropped) {
+        long latencyNanos = nanoClock.getAsLong() - startNanos;
+        onRelease(startNanos, dropped || latencyNanos > latencyThresholdNanos);
+    }
+
+    /**
+     * Releases a request whose duration depends on how much it returns rather than on
+     * load (a streamed listing), so only failures count as overload.
+     */
+    public void releaseIgnoringLatency(long startNanos, boolean dropped) {
+        onRelease(startNanos, dropped);
+    }
+
+    private void onRelease(long startNanos, boolean overloaded) {
+        int before = inFlight.getAndDecrement();
+        if (overloaded) {
+            backOff(startNanos);
+        } else if (before * 2 >= limit.get()) {
+            // Only grow while the limit is actually being used
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    private void backOff(long startNanos) {
+        Long last = lastBackoff.get();
+        if (last != null && startNanos - last < 0) {
+            return;
+        }
+        if (lastBackoff.compareAndSet(last, nanoClock.getAsLong())) {
+            limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,21 @@
+package jala.university.ds3.infra.security;
+
+import java.time.Duration;
+
+/**
+ * Decides whether a login attempt may go on to the password check.
+ * The default implementation (SlidingWindowLoginLimiter) counts in this JVM only;
+ * an implementation backed by a shared store can replace the bean in
+ * SecurityConfigurations to enforce the limits across nodes.
+ */
+public interface LoginAttemptLimiter {
+
+    /**
+     * Counts the attempt when it is allowed. Rejected attempts are not counted.
+     *
+     * @param login         login as sent by the client
+     * @param clientAddress remote address of the request
+     * @return Duration.ZERO when the attempt may proceed, otherwise how long the client should wait
+     */
+    Duration tryAcquire(String login, String clientAddress);
+}
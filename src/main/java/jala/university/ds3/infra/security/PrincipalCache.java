@@ -0,0 +1,104 @@
+package jala.university.ds3.infra.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.infra.sync.UsersChangedEvent;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of authenticated principals keyed by login.
+ * Avoids one database round trip per authenticated request in SecurityFilter.
+ * Loads run on the calling thread, inside the cache's compute. That compute holds a
+ * monitor, which would pin a virtual thread to its carrier for the whole query, so with
+ * spring.threads.virtual.enabled loads are handed to the application task executor instead.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Cache<String, User> cache;
+    // Only with virtual threads; cache is then its synchronous view
+    private final AsyncCache<String, User> asyncCache;
+
+    public PrincipalCache(@Value("${api.security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${api.security.principal-cache.ttl:60s}") Duration ttl,
+                          MeterRegistry meterRegistry,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                          @Qualifier("applicationTaskExecutor") Executor loadExecutor) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats();
+        if (virtualThreads) {
+            this.asyncCache = builder.executor(loadExecutor).buildAsync();
+            this.cache = asyncCache.synchronous();
+            CaffeineCacheMetrics.monitor(meterRegistry, asyncCache, "principalCache");
+        } else {
+            this.asyncCache = null;
+            this.cache = builder.build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "principalCache");
+        }
+    }
+
+    /**
+     * Returns the cached principal or loads it. Missing users are not cached.
+     * Concurrent misses for the same login share one load, and an eviction
+     * while a load is in flight discards its result.
+     */
+    public Optional<User> get(String login, Function<String, Optional<User>> loader) {
+        if (asyncCache == null) {
+            return Optional.ofNullable(cache.get(login, key -> loader.apply(key).orElse(null)));
+        }
+        CompletableFuture<User> principal = asyncCache.get(login, (key, executor) ->
+                CompletableFuture.supplyAsync(() -> loader.apply(key).orElse(null), executor));
+        try {
+            return Optional.ofNullable(principal.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void evict(String login) {
+        if (login != null) {
+            cache.invalidate(login);
+        }
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Snapshot of the loaded principals; loads still in flight are not included.
+     */
+    public List<User> cachedPrincipals() {
+        return List.copyOf(cache.asMap().values());
+    }
+
+    /**
+     * Drops users changed outside this application. Matching on id as well catches
+     * entries still cached under a login that has since been renamed.
+     */
+    @EventListener
+    public void onUsersChanged(UsersChangedEvent event) {
+        event.logins().forEach(this::evict);
+        cache.asMap().values().removeIf(user -> event.ids().contains(user.getId()));
+    }
+}
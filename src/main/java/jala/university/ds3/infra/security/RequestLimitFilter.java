@@ -0,0 +1,231 @@
+package jala.university.ds3.infra.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-route request limits, applied right after SecurityFilter so the user is known:
+ * a token bucket per user (client address when anonymous) and an adaptive
+ * concurrency limit for the route as a whole. Rejections are answered here with a
+ * pre-built 429 body, without reaching the dispatcher.
+ * Rejections are published as "http.server.requests.limited".
+ */
+@Component
+public class RequestLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute set by handlers whose response time grows with the data returned
+     * rather than with load (the streamed user listing); their latency is not used as an
+     * overload signal by the concurrency limit.
+     */
+    public static final String IGNORE_LATENCY_ATTRIBUTE = RequestLimitFilter.class.getName() + ".IGNORE_LATENCY";
+
+    private static final byte[] RATE_LIMITED =
+            "{\"message\":\"Too many requests, try again later\",\"status\":429}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CONCURRENCY_LIMITED =
+            "{\"message\":\"Too many requests in progress, try again later\",\"status\":429}".getBytes(StandardCharsets.UTF_8);
+
+    private final boolean enabled;
+    private final List<RouteLimit> routes;
+
+    public RequestLimitFilter(RequestLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.routes = properties.routes().entrySet().stream()
+                .map(entry -> new RouteLimit(entry.getKey(), entry.getValue(), properties.maxKeys(), meterRegistry))
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RouteLimit route = match(request);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (route.bucket != null) {
+            long waitNanos = route.bucket.tryAcquire(clientKey(request));
+            if (waitNanos > 0) {
+                route.rateRejections.increment();
+                reject(response, RATE_LIMITED, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1);
+                return;
+            }
+        }
+
+        if (route.concurrency == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!route.concurrency.tryAcquire()) {
+            route.concurrencyRejections.increment();
+            reject(response, CONCURRENCY_LIMITED, 1);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                // Streaming and CompletableFuture responses hold the slot until they complete
+                request.getAsyncContext().addListener(new ReleaseOnComplete(route.concurrency, start));
+            } else {
+                release(route.concurrency, request, start,
+                        failed || response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        }
+    }
+
+    private static void release(AimdConcurrencyLimiter concurrency, ServletRequest request,
+                                long start, boolean dropped) {
+        if (request.getAttribute(IGNORE_LATENCY_ATTRIBUTE) != null) {
+            concurrency.releaseIgnoringLatency(start, dropped);
+        } else {
+            concurrency.release(start, dropped);
+        }
+    }
+
+    private RouteLimit match(HttpServletRequest request) {
+        PathContainer path = null;
+        for (RouteLimit route : routes) {
+            if (route.method != null && !route.method.equalsIgnoreCase(request.getMethod())) {
+                continue;
+            }
+            if (path == null) {
+                path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+            }
+            if (route.pattern.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            return "user:" + authentication.getName();
+        }
+        return "addr:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, byte[] body, long retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfterSeconds)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static final class RouteLimit {
+
+        private final String method;
+        private final PathPattern pattern;
+        private final TokenBucketLimiter bucket;
+        private final AimdConcurrencyLimiter concurrency;
+        private final Counter rateRejections;
+        private final Counter concurrencyRejections;
+
+        private RouteLimit(String name, RequestLimitProperties.Route route, long maxKeys, MeterRegistry meterRegistry) {
+            if (route.path() == null) {
+                throw new IllegalArgumentException("api.rate-limit.routes." + name + ".path is required");
+            }
+            this.method = route.method();
+            this.pattern = PathPatternParser.defaultInstance.parse(route.path());
+            this.bucket = route.rate() > 0
+                    ? new TokenBucketLimiter(route.rate(), route.burst(), maxKeys)
+                    : null;
+
+            RequestLimitProperties.Concurrency settings = route.concurrency();
+            this.concurrency = settings == null ? null : new AimdConcurrencyLimiter(settings.initial(),
+                    settings.min(), settings.max(), settings.backoffRatio(), settings.latencyThreshold());
+            if (concurrency != null) {
+                Gauge.builder("http.server.concurrency.limit", concurrency, AimdConcurrencyLimiter::getLimit)
+                        .description("Current adaptive concurrency limit")
+                        .tag("route", name)
+                        .register(meterRegistry);
+            }
+
+            this.rateRejections = rejections(meterRegistry, name, "rate");
+            this.concurrencyRejections = rejections(meterRegistry, name, "concurrency");
+        }
+
+        private static Counter rejections(MeterRegistry meterRegistry, String route, String reason) {
+            return Counter.builder("http.server.requests.limited")
+                    .description("Requests rejected with 429 by RequestLimitFilter")
+                    .tag("route", route)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Releases the concurrency slot of an async request. onComplete always follows
+     * onTimeout/onError, so the slot is released exactly once.
+     */
+    private static final class ReleaseOnComplete implements AsyncListener {
+
+        private final AimdConcurrencyLimiter concurrency;
+        private final long start;
+        private volatile boolean dropped;
+
+        private ReleaseOnComplete(AimdConcurrencyLimiter concurrency, long start) {
+            this.concurrency = concurrency;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            var response = (HttpServletResponse) event.getSuppliedResponse();
+            release(concurrency, event.getSuppliedRequest(), start,
+                    dropped || response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            dropped = true;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            dropped = true;
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
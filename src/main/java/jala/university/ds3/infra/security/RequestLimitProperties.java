@@ -0,0 +1,59 @@
+package jala.university.ds3.infra.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Per-route limits applied by RequestLimitFilter, under "api.rate-limit".
+ * Routes are matched in declaration order; the first match applies.
+ *
+ * <pre>
+ * api.rate-limit.routes.list-users.method=GET
+ * api.rate-limit.routes.list-users.path=/users
+ * api.rate-limit.routes.list-users.rate=2
+ * api.rate-limit.routes.list-users.burst=5
+ * api.rate-limit.routes.list-users.concurrency.initial=4
+ * </pre>
+ */
+@ConfigurationProperties("api.rate-limit")
+public record RequestLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        // Bound on the users/addresses tracked per route
+        @DefaultValue("100000") long maxKeys,
+        Map<String, Route> routes
+) {
+
+    public RequestLimitProperties {
+        routes = routes == null ? Map.of() : routes;
+    }
+
+    /**
+     * @param method HTTP method, or null for any
+     * @param path   PathPattern syntax, e.g. /users/{id} or /users/**
+     * @param rate   sustained requests per second per user (client address when anonymous); 0 disables
+     * @param burst  requests per user allowed at once
+     */
+    public record Route(
+            String method,
+            String path,
+            @DefaultValue("0") double rate,
+            @DefaultValue("1") int burst,
+            Concurrency concurrency
+    ) {
+    }
+
+    /**
+     * Adaptive limit on requests in flight for the whole route; absent disables it.
+     */
+    public record Concurrency(
+            @DefaultValue("10") int initial,
+            @DefaultValue("1") int min,
+            @DefaultValue("100") int max,
+            @DefaultValue("0.9") double backoffRatio,
+            @DefaultValue("1s") Duration latencyThreshold
+    ) {
+    }
+}
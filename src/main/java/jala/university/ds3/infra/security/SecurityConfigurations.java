@@ -1,6 +1,10 @@
 package jala.university.ds3.infra.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,27 +13,37 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(RequestLimitProperties.class)
 public class SecurityConfigurations {
 
     @Autowired
     private SecurityFilter securityFilter;
 
+    @Autowired
+    private RequestLimitFilter requestLimitFilter;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity) throws Exception {
         return httpSecurity
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> authorize
+                        // Async dispatches (CompletableFuture, StreamingResponseBody) resume a request
+                        // that was already authorized; SecurityFilter does not run on them
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Public endpoints
                         .requestMatchers(HttpMethod.POST, "/auth/login").permitAll()
                         .requestMatchers(HttpMethod.POST, "/auth/register").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/auth/register/bulk").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
 
                         // Swagger/OpenAPI endpoints - IMPORTANTE!
@@ -41,6 +55,8 @@ public class SecurityConfigurations {
                         .requestMatchers("/webjars/**").permitAll()
                         .requestMatchers("/favicon.ico").permitAll()
 
+                        // Metrics expose route, user-table and cache details: administrators only
+                        .requestMatchers("/actuator/prometheus", "/actuator/metrics/**").hasRole("ADMIN")
                         .requestMatchers("/actuator/**").permitAll()
 
                         // User endpoints
@@ -54,6 +70,8 @@ public class SecurityConfigurations {
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class)
+                // Limits are per user, so they run once the token has been resolved
+                .addFilterAfter(requestLimitFilter, SecurityFilter.class)
                 .build();
     }
 
@@ -63,7 +81,28 @@ public class SecurityConfigurations {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${api.security.password.strength:0}") int strength,
+                                           @Value("${api.security.password.target-hash-time:250ms}") Duration targetHashTime,
+                                           @Value("${api.security.password.min-strength:10}") int minStrength,
+                                           @Value("${api.security.password.max-strength:14}") int maxStrength,
+                                           MeterRegistry meterRegistry) {
+        return new AdaptiveBCryptPasswordEncoder(strength, targetHashTime, minStrength, maxStrength, meterRegistry);
+    }
+
+    @Bean
+    public LoginAttemptLimiter loginAttemptLimiter(@Value("${api.security.login-limit.enabled:true}") boolean enabled,
+                                                   @Value("${api.security.login-limit.per-login.max-attempts:10}") int perLogin,
+                                                   @Value("${api.security.login-limit.per-login.window:5m}") Duration perLoginWindow,
+                                                   @Value("${api.security.login-limit.per-address.max-attempts:100}") int perAddress,
+                                                   @Value("${api.security.login-limit.per-address.window:1m}") Duration perAddressWindow,
+                                                   @Value("${api.security.login-limit.max-keys:100000}") long maxKeys,
+                                                   MeterRegistry meterRegistry) {
+        if (!enabled) {
+            return (login, clientAddress) -> Duration.ZERO;
+        }
+        return new SlidingWindowLoginLimiter(
+                new SlidingWindowCounter(perLogin, perLoginWindow, maxKeys),
+                new SlidingWindowCounter(perAddress, perAddressWindow, maxKeys),
+                meterRegistry);
     }
 }
\ No newline at end of file
@@ -1,12 +1,20 @@
 package jala.university.ds3.infra.security;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import jala.university.ds3.infra.tracing.ServerTiming;
 import jala.university.ds3.repositories.UserRepository;
 import jala.university.ds3.service.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,6 +22,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class SecurityFilter extends OncePerRequestFilter {
@@ -24,30 +35,120 @@ public class SecurityFilter extends OncePerRequestFilter {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TokenRevocationRegistry revocationRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    // "database" reloads the user on each request, "stateless" trusts the verified claims
+    @Value("${api.security.auth-mode:database}")
+    private String authMode;
+
+    /**
+     * Result of resolving the request's principal, published as the "security.filter" timer.
+     */
+    enum Outcome {
+        NO_TOKEN, INVALID_TOKEN, REVOKED, USER_MISSING, SUCCESS
+    }
+
+    private final Map<Outcome, Timer> outcomeTimers = new EnumMap<>(Outcome.class);
+
+    @Override
+    protected void initFilterBean() {
+        for (Outcome outcome : Outcome.values()) {
+            outcomeTimers.put(outcome, Timer.builder("security.filter")
+                    .description("Time to resolve the principal from the bearer token")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .tag("mode", authMode.toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
         var token = this.recoverToken(request);
+        Outcome outcome = Outcome.NO_TOKEN;
 
         if (token != null) {
-            var login = tokenService.validateToken(token);
-
-            if (login != null && !login.isEmpty()) {
-                UserDetails user = userRepository.findByLogin(login)
-                        .orElse(null);
+            Resolution resolution = "stateless".equalsIgnoreCase(authMode)
+                    ? resolveFromClaims(token)
+                    : resolveFromDatabase(token);
+            outcome = resolution.outcome();
 
-                if (user != null) {
-                    var authentication = new UsernamePasswordAuthenticationToken(
-                            user, null, user.getAuthorities());
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                }
+            if (resolution.user() != null) {
+                UserDetails user = resolution.user();
+                var authentication = new UsernamePasswordAuthenticationToken(
+                        user, null, user.getAuthorities());
+                SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         }
+        outcomeTimers.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         filterChain.doFilter(request, response);
     }
 
+    private record Resolution(Outcome outcome, UserDetails user) {
+
+        static Resolution failed(Outcome outcome) {
+            return new Resolution(outcome, null);
+        }
+    }
+
+    private Resolution resolveFromDatabase(String token) {
+        var login = ServerTiming.stage("token", observationRegistry)
+                .observe(() -> tokenService.validateToken(token));
+
+        if (login == null || login.isEmpty()) {
+            return Resolution.failed(Outcome.INVALID_TOKEN);
+        }
+        return ServerTiming.stage("principal", observationRegistry)
+                .observe(() -> principalCache.get(login, userRepository::findByLogin))
+                .map(user -> new Resolution(Outcome.SUCCESS, user))
+                .orElse(Resolution.failed(Outcome.USER_MISSING));
+    }
+
+    /**
+     * Builds the principal from the verified JWT claims without touching the database.
+     */
+    private Resolution resolveFromClaims(String token) {
+        DecodedJWT decoded = ServerTiming.stage("token", observationRegistry)
+                .observe(() -> tokenService.decodeToken(token));
+
+        if (decoded == null || decoded.getSubject() == null || decoded.getSubject().isEmpty()) {
+            return Resolution.failed(Outcome.INVALID_TOKEN);
+        }
+
+        String login = decoded.getSubject();
+        String userId = decoded.getClaim("userId").asString();
+        String role = decoded.getClaim("role").asString();
+        if (userId == null || role == null) {
+            return Resolution.failed(Outcome.INVALID_TOKEN);
+        }
+        if (revocationRegistry.isRevoked(login, TokenService.issuedAt(decoded), role)) {
+            return Resolution.failed(Outcome.REVOKED);
+        }
+
+        try {
+            return new Resolution(Outcome.SUCCESS, User.builder()
+                    .id(userId)
+                    .login(login)
+                    .role(UserRole.valueOf(role))
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return Resolution.failed(Outcome.INVALID_TOKEN);
+        }
+    }
+
     private String recoverToken(HttpServletRequest request) {
         var authHeader = request.getHeader("Authorization");
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -55,4 +156,4 @@ public class SecurityFilter extends OncePerRequestFilter {
         }
         return authHeader.replace("Bearer ", "");
     }
-}
\ No newline at end of file
+}
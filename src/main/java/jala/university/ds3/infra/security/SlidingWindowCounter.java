@@ -0,0 +1,94 @@
+package jala.university.ds3.infra.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key sliding-window rate counter. The count over the last window is estimated
+ * as previous window * (unelapsed fraction of the current one) + current window,
+ * which smooths the burst a fixed window allows at its boundary.
+ *
+ * Each key holds one AtomicLong packing [window index:32][previous:16][current:16]
+ * and is updated with a CAS loop, so no lock is taken on the hot path. Keys are
+ * held in a size-bounded Caffeine map and dropped after two idle windows, when
+ * their count can no longer affect a decision.
+ */
+public class SlidingWindowCounter {
+
+    private static final long COUNT_MASK = 0xFFFF;
+    private static final long WINDOW_MASK = 0xFFFF_FFFFL;
+
+    private final int limit;
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private final Cache<String, AtomicLong> windows;
+
+    public SlidingWindowCounter(int limit, Duration window, long maxKeys) {
+        this(limit, window, maxKeys, System::currentTimeMillis);
+    }
+
+    SlidingWindowCounter(int limit, Duration window, long maxKeys, LongSupplier clock) {
+        if (limit < 1 || limit > COUNT_MASK) {
+            throw new IllegalArgumentException("limit must be between 1 and " + COUNT_MASK);
+        }
+        this.limit = limit;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(window.multipliedBy(2))
+                .build();
+    }
+
+    /**
+     * Counts one event for the key if it is under the limit.
+     *
+     * @return 0 when counted, otherwise milliseconds until an event would be allowed
+     */
+    public long tryAcquire(String key) {
+        AtomicLong state = windows.get(key, k -> new AtomicLong());
+        long now = clock.getAsLong();
+        long window = (now / windowMillis) & WINDOW_MASK;
+        long elapsed = now % windowMillis;
+
+        while (true) {
+            long current = state.get();
+            long stateWindow = current >>> 32;
+            long previousCount = (current >>> 16) & COUNT_MASK;
+            long currentCount = current & COUNT_MASK;
+
+            if (stateWindow != window) {
+                // Roll over: the old current window becomes the previous one only if adjacent
+                previousCount = stateWindow == ((window - 1) & WINDOW_MASK) ? currentCount : 0;
+                currentCount = 0;
+            }
+
+            // previous * (window - elapsed) / window + current >= limit, kept in integers
+            if (previousCount * (windowMillis - elapsed) + currentCount * windowMillis >= limit * windowMillis) {
+                return retryAfterMillis(previousCount, currentCount, elapsed);
+            }
+
+            long next = (window << 32) | (previousCount << 16) | (currentCount + 1);
+            if (state.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Time until the weighted previous window has decayed enough for one more event.
+     */
+    private long retryAfterMillis(long previousCount, long currentCount, long elapsed) {
+        if (currentCount >= limit) {
+            // Only the next window can help; at its start the full current count becomes "previous"
+            return windowMillis - elapsed + 1;
+        }
+        // previous * (window - t) / window < limit - current  <=>  t > window * (1 - (limit - current) / previous)
+        long allowedAt = windowMillis - (windowMillis * (limit - currentCount)) / previousCount + 1;
+        return Math.max(1, allowedAt - elapsed);
+    }
+}
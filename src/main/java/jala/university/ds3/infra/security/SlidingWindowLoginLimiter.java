@@ -0,0 +1,55 @@
+package jala.university.ds3.infra.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * In-process login throttling with two sliding windows: one per login (guessing one
+ * account's password from many addresses) and one per client address (credential
+ * stuffing many accounts from one address). Rejections are published as
+ * "security.login.throttled".
+ */
+public class SlidingWindowLoginLimiter implements LoginAttemptLimiter {
+
+    private final SlidingWindowCounter perLogin;
+    private final SlidingWindowCounter perAddress;
+    private final Counter loginRejections;
+    private final Counter addressRejections;
+
+    public SlidingWindowLoginLimiter(SlidingWindowCounter perLogin, SlidingWindowCounter perAddress,
+                                     MeterRegistry meterRegistry) {
+        this.perLogin = perLogin;
+        this.perAddress = perAddress;
+        this.loginRejections = rejections(meterRegistry, "login");
+        this.addressRejections = rejections(meterRegistry, "address");
+    }
+
+    @Override
+    public Duration tryAcquire(String login, String clientAddress) {
+        // Address first: an address over its limit must not use up the login's budget
+        long wait = perAddress.tryAcquire(clientAddress == null ? "" : clientAddress);
+        if (wait > 0) {
+            addressRejections.increment();
+            return Duration.ofMillis(wait);
+        }
+
+        // Logins are case-insensitive in the database, so "Admin" and "admin" share a window
+        String key = login == null ? "" : login.trim().toLowerCase(Locale.ROOT);
+        wait = perLogin.tryAcquire(key);
+        if (wait > 0) {
+            loginRejections.increment();
+            return Duration.ofMillis(wait);
+        }
+        return Duration.ZERO;
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String key) {
+        return Counter.builder("security.login.throttled")
+                .description("Login attempts rejected before the password check")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+}
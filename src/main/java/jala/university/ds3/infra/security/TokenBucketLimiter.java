@@ -0,0 +1,69 @@
+package jala.university.ds3.infra.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key token bucket implemented as GCRA (generic cell rate algorithm): instead of a
+ * token count and a refill timestamp, each key keeps one "theoretical arrival time".
+ * A request is allowed when that time is at most burst intervals ahead of now, and
+ * moves it one interval further. One AtomicLong per key, updated by CAS.
+ *
+ * Keys are held in a size-bounded Caffeine map and dropped once idle long enough
+ * for their bucket to be full again.
+ */
+public class TokenBucketLimiter {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<String, AtomicLong> buckets;
+
+    /**
+     * @param ratePerSecond sustained requests per second per key
+     * @param burst         requests allowed at once on a full bucket
+     */
+    public TokenBucketLimiter(double ratePerSecond, int burst, long maxKeys) {
+        this(ratePerSecond, burst, maxKeys, System::nanoTime);
+    }
+
+    TokenBucketLimiter(double ratePerSecond, int burst, long maxKeys, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate must be positive and burst at least 1");
+        }
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000L / ratePerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(intervalNanos * burst).plusSeconds(1))
+                .build();
+    }
+
+    /**
+     * Takes one token for the key.
+     *
+     * @return 0 when allowed, otherwise nanoseconds until the next token is available
+     */
+    public long tryAcquire(String key) {
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = nanoClock.getAsLong();
+
+        while (true) {
+            long current = arrival.get();
+            // An empty slot or a bucket idle long enough starts full
+            long tat = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long wait = tat - toleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, tat + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package jala.university.ds3.infra.security;
+
+import jala.university.ds3.infra.sync.UsersChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory "tokens issued before" registry used by the stateless auth mode.
+ * Entries are kept only as long as a token issued before them could still be valid.
+ * <p>
+ * Tokens carry their issue time in milliseconds (TokenService.issuedAt), and a token issued
+ * in the same millisecond as the revocation counts as issued before it. So a token taken just
+ * before a password change never survives it, at the cost of a login within that millisecond
+ * after the change having to be repeated.
+ * <p>
+ * Role changes and deletes made outside the API reach the registry as UsersChangedEvents:
+ * deleted logins are revoked, and tokens whose role claim differs from a changed user's
+ * current role are rejected, so a demoted administrator loses ROLE_ADMIN at once.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private final Map<String, Instant> revokedBefore = new ConcurrentHashMap<>();
+    private final Map<String, RoleChange> currentRoles = new ConcurrentHashMap<>();
+    private final Duration retention;
+
+    public TokenRevocationRegistry(@Value("${api.security.token.revocation-retention:6h}") Duration retention) {
+        this.retention = retention;
+    }
+
+    /**
+     * Invalidates every token of the given login issued up to now.
+     */
+    public void revoke(String login) {
+        if (login == null) {
+            return;
+        }
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        revokedBefore.put(login, now);
+        // Revocations are rare, so pruning on write keeps the map bounded without a scheduler
+        Instant cutoff = now.minus(retention);
+        revokedBefore.values().removeIf(instant -> instant.isBefore(cutoff));
+    }
+
+    @EventListener
+    public void onUsersChanged(UsersChangedEvent event) {
+        Instant now = Instant.now();
+        for (String login : event.logins()) {
+            String role = event.roles().get(login);
+            if (role == null) {
+                revoke(login);
+            } else {
+                currentRoles.put(login, new RoleChange(role, now));
+            }
+        }
+        // After the retention every token issued with an older role has expired
+        Instant cutoff = now.minus(retention);
+        currentRoles.values().removeIf(change -> change.at().isBefore(cutoff));
+    }
+
+    /**
+     * Tokens without an issued-at claim are treated as revoked once the login has a revocation.
+     */
+    public boolean isRevoked(String login, Instant issuedAt) {
+        Instant revokedAt = revokedBefore.get(login);
+        if (revokedAt == null) {
+            return false;
+        }
+        return issuedAt == null || !issuedAt.isAfter(revokedAt);
+    }
+
+    /**
+     * Also rejects tokens whose role claim is not the login's current role, when that role
+     * was reported by a change since.
+     */
+    public boolean isRevoked(String login, Instant issuedAt, String role) {
+        RoleChange change = currentRoles.get(login);
+        if (change != null && !change.role().equals(role)) {
+            return true;
+        }
+        return isRevoked(login, issuedAt);
+    }
+
+    private record RoleChange(String role, Instant at) {}
+}
@@ -0,0 +1,42 @@
+package jala.university.ds3.infra.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends each event as one JSON line to a file, standing in for the legacy
+ * system until it exposes an endpoint of its own.
+ */
+public class FileLegacyUserSink implements LegacyUserSink {
+
+    private final Path file;
+    private final ObjectWriter eventWriter;
+
+    public FileLegacyUserSink(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.eventWriter = objectMapper.writerFor(UserChangeEvent.class);
+    }
+
+    @Override
+    public synchronized void apply(UserChangeEvent event) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(eventWriter.writeValueAsBytes(event));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package jala.university.ds3.infra.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.Pollers;
+import org.springframework.integration.jdbc.JdbcPollingChannelAdapter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Change-data-capture from the users table to the legacy system through a transactional outbox.
+ * <p>
+ * {@link UserOutboxListener} writes a user_outbox row in the same transaction as every
+ * User change. A poller claims due rows with FOR UPDATE SKIP LOCKED and
+ * {@link LegacySyncHandler} delivers them in that same transaction. Only the oldest
+ * pending row of each user can be claimed, so its lock keeps other instances away from
+ * that user's newer rows until the claim commits, and several instances can poll without
+ * sending a user's changes twice or out of order. Delivery is at least once.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.legacy.sync.enabled", havingValue = "true")
+public class LegacySyncConfiguration {
+
+    // A row is only due once no older row of the same user is pending, whether locked by
+    // another poller or waiting for its retry
+    static final String SELECT_DUE = "SELECT " + OutboxRecord.COLUMNS + " FROM user_outbox o "
+            + "WHERE status = 'PENDING' AND next_attempt_at <= CURRENT_TIMESTAMP(3) "
+            + "AND NOT EXISTS (SELECT 1 FROM user_outbox older "
+            + "WHERE older.user_id = o.user_id AND older.status = 'PENDING' AND older.id < o.id) "
+            + "ORDER BY id LIMIT %d FOR UPDATE SKIP LOCKED";
+
+    @Bean
+    public UserOutboxListener userOutboxListener(EntityManagerFactory entityManagerFactory, ObjectMapper objectMapper) {
+        UserOutboxListener listener = new UserOutboxListener(objectMapper);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return listener;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(LegacyUserSink.class)
+    public LegacyUserSink fileLegacyUserSink(@Value("${app.legacy.sync.file:legacy-sync/users.ndjson}") Path file,
+                                             ObjectMapper objectMapper) {
+        return new FileLegacyUserSink(file, objectMapper);
+    }
+
+    @Bean
+    public LegacySyncHandler legacySyncHandler(LegacyUserSink sink, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                               @Value("${app.legacy.sync.max-attempts:10}") int maxAttempts,
+                                               @Value("${app.legacy.sync.retry-backoff:5s}") Duration retryBackoff,
+                                               MeterRegistry meterRegistry) {
+        return new LegacySyncHandler(sink, jdbcTemplate, objectMapper, maxAttempts, retryBackoff, meterRegistry);
+    }
+
+    @Bean
+    public IntegrationFlow legacySyncFlow(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                          LegacySyncHandler handler,
+                                          @Value("${app.legacy.sync.poll-interval:1s}") Duration pollInterval,
+                                          @Value("${app.legacy.sync.batch-size:100}") int batchSize) {
+        JdbcPollingChannelAdapter source = new JdbcPollingChannelAdapter(dataSource, SELECT_DUE.formatted(batchSize));
+        source.setRowMapper(OutboxRecord.MAPPER);
+
+        return IntegrationFlow
+                .from(source, endpoint -> endpoint.poller(Pollers.fixedDelay(pollInterval).transactional(transactionManager)))
+                .<List<OutboxRecord>>handle((records, headers) -> {
+                    handler.deliver(records);
+                    return null;
+                })
+                .get();
+    }
+}
@@ -0,0 +1,134 @@
+package jala.university.ds3.infra.sync;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jala.university.ds3.domain.user.UuidBinaryConverter;
+import jala.university.ds3.infra.sync.UserChangeEvent.UserSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers one polled batch of outbox rows to the legacy sink. Runs inside the
+ * poller's transaction, whose lock on each user's oldest pending row keeps other
+ * instances off that user's rows until it commits.
+ * <p>
+ * Only the newest pending row per user is sent; older ones are superseded by it.
+ * A failed delivery is retried with exponential backoff and parked as FAILED
+ * after maxAttempts, without holding back other users.
+ */
+public class LegacySyncHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacySyncHandler.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final int MAX_BACKOFF_DOUBLINGS = 10;
+
+    private final LegacyUserSink sink;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ObjectReader snapshotReader;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final UuidBinaryConverter idConverter = new UuidBinaryConverter();
+    private final Counter delivered;
+    private final Counter superseded;
+    private final Counter retried;
+    private final Counter failed;
+
+    public LegacySyncHandler(LegacyUserSink sink, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                             int maxAttempts, Duration retryBackoff, MeterRegistry meterRegistry) {
+        this.sink = sink;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.snapshotReader = objectMapper.readerFor(UserSnapshot.class);
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.delivered = counter("delivered", meterRegistry);
+        this.superseded = counter("superseded", meterRegistry);
+        this.retried = counter("retried", meterRegistry);
+        this.failed = counter("failed", meterRegistry);
+    }
+
+    public void deliver(List<OutboxRecord> claimed) {
+        if (claimed.isEmpty()) {
+            return;
+        }
+        // The claimed rows are the oldest pending ones; newer rows of the same users replace them
+        List<OutboxRecord> records = namedJdbcTemplate.query("SELECT " + OutboxRecord.COLUMNS + " FROM user_outbox "
+                        + "WHERE status = 'PENDING' AND user_id IN (:userIds) ORDER BY id",
+                Map.of("userIds", claimed.stream().map(OutboxRecord::userId).toList()), OutboxRecord.MAPPER);
+
+        Map<String, OutboxRecord> latest = new LinkedHashMap<>();
+        for (OutboxRecord record : records) {
+            latest.merge(idConverter.convertToEntityAttribute(record.userId()), record,
+                    (previous, next) -> next.id() > previous.id() ? next : previous);
+        }
+        superseded.increment(records.size() - latest.size());
+
+        latest.forEach(this::deliver);
+    }
+
+    private void deliver(String userId, OutboxRecord record) {
+        try {
+            sink.apply(toEvent(record));
+        } catch (RuntimeException e) {
+            reschedule(userId, record, e);
+            return;
+        }
+        // Older rows of the same user, in this batch or not yet due, are covered by this one
+        jdbcTemplate.update("DELETE FROM user_outbox WHERE user_id = ? AND id <= ?", record.userId(), record.id());
+        delivered.increment();
+    }
+
+    private void reschedule(String userId, OutboxRecord record, RuntimeException error) {
+        jdbcTemplate.update("DELETE FROM user_outbox WHERE user_id = ? AND id < ?", record.userId(), record.id());
+
+        int attempts = record.attempts() + 1;
+        String message = truncate(String.valueOf(error.getMessage()));
+        if (attempts >= maxAttempts) {
+            jdbcTemplate.update("UPDATE user_outbox SET status = 'FAILED', attempts = ?, last_error = ? WHERE id = ?",
+                    attempts, message, record.id());
+            failed.increment();
+            log.warn("Giving up syncing user {} to the legacy system after {} attempts: {}", userId, attempts, message);
+            return;
+        }
+
+        long delayMicros = retryBackoff.multipliedBy(1L << Math.min(record.attempts(), MAX_BACKOFF_DOUBLINGS))
+                .toNanos() / 1_000;
+        jdbcTemplate.update("UPDATE user_outbox SET attempts = ?, last_error = ?, "
+                        + "next_attempt_at = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) WHERE id = ?",
+                attempts, message, delayMicros, record.id());
+        retried.increment();
+        log.debug("Legacy sync of user {} failed (attempt {}), retrying in {} ms", userId, attempts, delayMicros / 1_000);
+    }
+
+    private UserChangeEvent toEvent(OutboxRecord record) {
+        try {
+            return new UserChangeEvent(record.id(), UserChangeEvent.Type.valueOf(record.eventType()),
+                    snapshotReader.readValue(record.payload()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox payload " + record.id(), e);
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static Counter counter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("legacy.sync.events")
+                .description("User changes handled by the legacy sync")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
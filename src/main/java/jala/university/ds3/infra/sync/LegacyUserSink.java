@@ -0,0 +1,9 @@
+package jala.university.ds3.infra.sync;
+
+/**
+ * Receiving end of the legacy sync. Throwing makes the event retry later.
+ */
+public interface LegacyUserSink {
+
+    void apply(UserChangeEvent event);
+}
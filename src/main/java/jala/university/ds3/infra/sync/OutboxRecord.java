@@ -0,0 +1,18 @@
+package jala.university.ds3.infra.sync;
+
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * A pending user_outbox row as read by the poller.
+ */
+public record OutboxRecord(long id, byte[] userId, String eventType, String payload, int attempts) {
+
+    static final String COLUMNS = "id, user_id, event_type, payload, attempts";
+
+    static final RowMapper<OutboxRecord> MAPPER = (rs, rowNum) -> new OutboxRecord(
+            rs.getLong("id"),
+            rs.getBytes("user_id"),
+            rs.getString("event_type"),
+            rs.getString("payload"),
+            rs.getInt("attempts"));
+}
@@ -0,0 +1,27 @@
+package jala.university.ds3.infra.sync;
+
+import jakarta.persistence.EntityManagerFactory;
+import jala.university.ds3.domain.user.User;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Drops changed users from Hibernate's second-level cache. Natural-id and query
+ * results cannot be evicted per user, so those regions are cleared as a whole.
+ */
+public class UserCacheInvalidator {
+
+    private final Cache cache;
+
+    public UserCacheInvalidator(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    @EventListener
+    public void onUsersChanged(UsersChangedEvent event) {
+        event.ids().forEach(id -> cache.evictEntityData(User.class, id));
+        cache.evictNaturalIdData(User.class);
+        cache.evictDefaultQueryRegion();
+    }
+}
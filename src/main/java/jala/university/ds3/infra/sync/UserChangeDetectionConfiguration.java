@@ -0,0 +1,46 @@
+package jala.university.ds3.infra.sync;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jala.university.ds3.domain.user.UserIdLayout;
+import jala.university.ds3.infra.security.PrincipalCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * Keeps user caches coherent with writes the legacy system makes directly to the
+ * shared users table; see {@link UserChangeDetector}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.legacy.change-detection.enabled", havingValue = "true")
+public class UserChangeDetectionConfiguration {
+
+    @Bean
+    public UserChangeDetector userChangeDetector(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                                                 PrincipalCache principalCache, MeterRegistry meterRegistry,
+                                                 @Value("${app.users.binary-id:false}") boolean binaryId,
+                                                 @Value("${app.legacy.change-detection.batch-size:500}") int batchSize,
+                                                 @Value("${app.legacy.change-detection.poll-interval:1s}") Duration pollInterval,
+                                                 @Value("${app.legacy.change-detection.lookback:5s}") Duration lookback,
+                                                 @Value("${app.legacy.change-detection.delete-check-interval:10s}") Duration deleteCheckInterval,
+                                                 @Value("${api.datasource.replica.url:}") String replicaUrl,
+                                                 @Value("${api.datasource.replica.max-lag:5s}") Duration replicaMaxLag,
+                                                 @Value("${api.datasource.replica.check-interval:2s}") Duration replicaCheckInterval) {
+        // The lag monitor only notices a replica past max-lag at its next check
+        Duration replicaLag = replicaUrl.isBlank() ? Duration.ZERO : replicaMaxLag.plus(replicaCheckInterval);
+        return new UserChangeDetector(jdbcTemplate, eventPublisher, principalCache,
+                UserIdLayout.of(binaryId), batchSize, pollInterval,
+                lookback, deleteCheckInterval, replicaLag, meterRegistry);
+    }
+
+    @Bean
+    public UserCacheInvalidator userCacheInvalidator(EntityManagerFactory entityManagerFactory) {
+        return new UserCacheInvalidator(entityManagerFactory);
+    }
+}
@@ -0,0 +1,218 @@
+package jala.university.ds3.infra.sync;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserIdLayout;
+import jala.university.ds3.infra.security.PrincipalCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notices users rows written by the legacy system, which bypasses Hibernate and the
+ * outbox, and publishes {@link UsersChangedEvent}s so cached principals and entities
+ * are dropped.
+ * <p>
+ * Updates and inserts are found by a high-water mark on the database-maintained
+ * updated_at column. Each poll rescans the last {@code lookback} before the mark,
+ * because a row stamped before the previous poll may only have committed after it;
+ * rows already reported with the same updated_at are skipped. Deleted rows leave
+ * nothing to scan, so the ids of cached principals are checked for existence instead.
+ * This application's own writes are detected too, which only costs an extra miss.
+ * <p>
+ * With a read replica, a read between the eviction and the replica applying the change
+ * would cache the old row again for the whole TTL, so every event is published a second
+ * time once {@code replicaLag}, the most the replica can be behind while still used, has passed.
+ */
+public class UserChangeDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeDetector.class);
+
+    private static final String FIRST_PAGE = "SELECT id, login, role, updated_at FROM users "
+            + "WHERE updated_at >= ? ORDER BY updated_at, id LIMIT ?";
+    private static final String NEXT_PAGE = "SELECT id, login, role, updated_at FROM users "
+            + "WHERE updated_at > ? OR (updated_at = ? AND id > ?) ORDER BY updated_at, id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PrincipalCache principalCache;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration lookback;
+    private final Duration deleteCheckInterval;
+    private final UserIdLayout idLayout;
+    private final Duration replicaLag;
+    private final ScheduledExecutorService scheduler;
+    private final Counter updated;
+    private final Counter deleted;
+
+    private LocalDateTime highWaterMark;
+    // id -> updated_at already reported, kept for rows inside the lookback window
+    private final Map<String, LocalDateTime> reported = new HashMap<>();
+
+    public UserChangeDetector(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                              PrincipalCache principalCache, UserIdLayout idLayout, int batchSize, Duration pollInterval,
+                              Duration lookback, Duration deleteCheckInterval, Duration replicaLag,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.eventPublisher = eventPublisher;
+        this.principalCache = principalCache;
+        this.idLayout = idLayout;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.lookback = lookback;
+        this.deleteCheckInterval = deleteCheckInterval;
+        this.replicaLag = replicaLag;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-change-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        this.updated = counter("updated", meterRegistry);
+        this.deleted = counter("deleted", meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> run("poll", this::poll),
+                0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> run("delete check", this::checkDeleted),
+                deleteCheckInterval.toMillis(), deleteCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Reads rows changed since the high-water mark, one page of batchSize at a time.
+     * The first poll only sets the mark: nothing is cached yet that could be stale.
+     */
+    void poll() {
+        if (highWaterMark == null) {
+            highWaterMark = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(MAX(updated_at), CURRENT_TIMESTAMP(3)) FROM users", LocalDateTime.class);
+            return;
+        }
+
+        List<ChangedRow> page = jdbcTemplate.query(FIRST_PAGE, ChangedRow.MAPPER,
+                highWaterMark.minus(lookback), batchSize);
+        while (!page.isEmpty()) {
+            publishUnreported(page);
+            ChangedRow last = page.get(page.size() - 1);
+            if (last.updatedAt().isAfter(highWaterMark)) {
+                highWaterMark = last.updatedAt();
+            }
+            if (page.size() < batchSize) {
+                break;
+            }
+            page = jdbcTemplate.query(NEXT_PAGE, ChangedRow.MAPPER,
+                    last.updatedAt(), last.updatedAt(), last.id(), batchSize);
+        }
+
+        LocalDateTime windowStart = highWaterMark.minus(lookback);
+        reported.values().removeIf(updatedAt -> updatedAt.isBefore(windowStart));
+    }
+
+    /**
+     * Looks up the ids of cached principals in chunks of batchSize and reports the missing ones.
+     */
+    void checkDeleted() {
+        List<User> cached = principalCache.cachedPrincipals();
+        for (int from = 0; from < cached.size(); from += batchSize) {
+            List<User> chunk = cached.subList(from, Math.min(from + batchSize, cached.size()));
+            List<Object> ids = chunk.stream().map(user -> idLayout.toDatabase(user.getId())).toList();
+            Set<String> existing = new HashSet<>(namedJdbcTemplate.query(
+                    "SELECT id FROM users WHERE id IN (:ids)", Map.of("ids", ids),
+                    (rs, rowNum) -> UserIdLayout.fromDatabase(rs.getObject(1))));
+
+            Set<String> missingIds = new HashSet<>();
+            Set<String> missingLogins = new HashSet<>();
+            for (User user : chunk) {
+                if (!existing.contains(user.getId())) {
+                    missingIds.add(user.getId());
+                    missingLogins.add(user.getLogin());
+                }
+            }
+            if (!missingIds.isEmpty()) {
+                log.debug("{} cached users no longer exist", missingIds.size());
+                deleted.increment(missingIds.size());
+                publish(new UsersChangedEvent(missingIds, missingLogins, Map.of()));
+            }
+        }
+    }
+
+    private void publishUnreported(List<ChangedRow> rows) {
+        Set<String> ids = new HashSet<>();
+        Set<String> logins = new HashSet<>();
+        Map<String, String> roles = new HashMap<>();
+        for (ChangedRow row : rows) {
+            String id = UserIdLayout.fromDatabase(row.id());
+            if (!row.updatedAt().equals(reported.put(id, row.updatedAt()))) {
+                ids.add(id);
+                logins.add(row.login());
+                roles.put(row.login(), row.role());
+            }
+        }
+        if (!ids.isEmpty()) {
+            log.debug("{} users changed since {}", ids.size(), highWaterMark);
+            updated.increment(ids.size());
+            publish(new UsersChangedEvent(ids, logins, roles));
+        }
+    }
+
+    private void publish(UsersChangedEvent event) {
+        eventPublisher.publishEvent(event);
+        if (!replicaLag.isZero()) {
+            scheduler.schedule(() -> run("replica re-eviction", () -> eventPublisher.publishEvent(event)),
+                    replicaLag.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void run(String task, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            // A failing run must not cancel the schedule; the next one starts from the same mark
+            log.warn("User change detection {} failed: {}", task, e.getMessage());
+        }
+    }
+
+    private static Counter counter(String change, MeterRegistry meterRegistry) {
+        return Counter.builder("legacy.changes.detected")
+                .description("Users rows found changed or deleted outside Hibernate")
+                .tag("change", change)
+                .register(meterRegistry);
+    }
+
+    // id is the raw column value, bound as is for the next page
+    private record ChangedRow(Object id, String login, String role, LocalDateTime updatedAt) {
+
+        static final RowMapper<ChangedRow> MAPPER = (rs, rowNum) -> new ChangedRow(
+                rs.getObject("id"),
+                rs.getString("login"),
+                rs.getString("role"),
+                rs.getObject("updated_at", LocalDateTime.class));
+    }
+}
@@ -0,0 +1,19 @@
+package jala.university.ds3.infra.sync;
+
+/**
+ * One user change as delivered to the legacy side.
+ * Delivery is at least once and intermediate changes may be skipped, so sinks apply
+ * events keyed by user id and ignore any whose sequence is below the last one applied.
+ */
+public record UserChangeEvent(long sequence, Type type, UserSnapshot user) {
+
+    public enum Type {
+        UPSERT, DELETE
+    }
+
+    /**
+     * Columns the legacy system reads; the password hash never leaves the table.
+     */
+    public record UserSnapshot(String id, String name, String login, String role) {
+    }
+}
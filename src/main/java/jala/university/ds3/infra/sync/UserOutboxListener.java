@@ -0,0 +1,116 @@
+package jala.university.ds3.infra.sync;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UuidBinaryConverter;
+import jala.university.ds3.infra.sync.UserChangeEvent.Type;
+import jala.university.ds3.infra.sync.UserChangeEvent.UserSnapshot;
+import org.hibernate.Transaction;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes a user_outbox row for every User insert, update and delete flushed by Hibernate,
+ * whichever repository or service made it. Rows of one transaction are collected and
+ * inserted as a JDBC batch right before it commits, on the same connection, so the
+ * outbox never disagrees with the users table.
+ */
+public class UserOutboxListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    static final String INSERT_SQL = "INSERT INTO user_outbox (user_id, event_type, payload) VALUES (?, ?, ?)";
+
+    private final ObjectWriter snapshotWriter;
+    private final UuidBinaryConverter idConverter = new UuidBinaryConverter();
+    private final Map<Transaction, List<Row>> pending = new ConcurrentHashMap<>();
+
+    public UserOutboxListener(ObjectMapper objectMapper) {
+        this.snapshotWriter = objectMapper.writerFor(UserSnapshot.class);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof User user) {
+            record(event.getSession(), Type.UPSERT, user);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof User user) {
+            record(event.getSession(), Type.UPSERT, user);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof User user) {
+            record(event.getSession(), Type.DELETE, user);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(EventSource session, Type type, User user) {
+        var snapshot = new UserSnapshot(user.getId(), user.getName(), user.getLogin(),
+                user.getRole() == null ? null : user.getRole().name());
+        Row row;
+        try {
+            row = new Row(idConverter.convertToDatabaseColumn(user.getId()), type, snapshotWriter.writeValueAsString(snapshot));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize user " + user.getId() + " for the outbox", e);
+        }
+        rowsFor(session).add(row);
+    }
+
+    /**
+     * One list per transaction; the first change registers the processes that write
+     * it before commit and drop it afterwards, including on rollback.
+     */
+    private List<Row> rowsFor(EventSource session) {
+        Transaction transaction = session.accessTransaction();
+        return pending.computeIfAbsent(transaction, tx -> {
+            List<Row> rows = new ArrayList<>();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) s -> {
+                List<Row> toWrite = pending.remove(tx);
+                if (toWrite != null && !toWrite.isEmpty()) {
+                    s.doWork(connection -> {
+                        try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                            for (Row r : toWrite) {
+                                insert.setBytes(1, r.userId());
+                                insert.setString(2, r.type().name());
+                                insert.setString(3, r.payload());
+                                insert.addBatch();
+                            }
+                            insert.executeBatch();
+                        }
+                    });
+                }
+            });
+            session.getActionQueue().registerProcess(
+                    (AfterTransactionCompletionProcess) (success, s) -> pending.remove(tx));
+            return rows;
+        });
+    }
+
+    private record Row(byte[] userId, Type type, String payload) {
+    }
+}
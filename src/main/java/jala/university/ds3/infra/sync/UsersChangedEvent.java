@@ -0,0 +1,13 @@
+package jala.university.ds3.infra.sync;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Published when users rows changed outside this application's own write paths,
+ * so in-process caches drop them. Logins are the current ones where known; caches
+ * keyed by login also match on id, since the login itself may have changed.
+ * Roles maps each login to its current role; logins of deleted users have none.
+ */
+public record UsersChangedEvent(Set<String> ids, Set<String> logins, Map<String, String> roles) {
+}
@@ -0,0 +1,90 @@
+package jala.university.ds3.infra.tracing;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Holds back explicit flushes until {@link #release()}, so a body that fits in the
+ * container's buffer is not committed before the filter adds its headers. Bytes go
+ * straight to the container; a body larger than the buffer still commits on its own,
+ * and headers added after that are dropped.
+ */
+class DeferredFlushResponseWrapper extends HttpServletResponseWrapper {
+
+    private volatile boolean released;
+    private ServletOutputStream outputStream;
+
+    DeferredFlushResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * Lets flushes through again, for example once a streaming response has gone async.
+     */
+    void release() {
+        released = true;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new DeferredFlushOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (released) {
+            super.flushBuffer();
+        }
+    }
+
+    private class DeferredFlushOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        DeferredFlushOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (released) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The container closes the stream at the end of the request
+            if (released) {
+                delegate.close();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package jala.university.ds3.infra.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.util.Locale;
+
+/**
+ * Stage durations of one sampled request, rendered as a Server-Timing header value.
+ * ServerTimingFilter binds an instance to the request thread; requests that were not
+ * sampled have none, and {@link #stage} hands back the no-op observation for them.
+ */
+public final class ServerTiming {
+
+    /** Name of the observations that make up the request breakdown; the stage is the "stage" key. */
+    public static final String OBSERVATION_NAME = "request.stage";
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private final StringBuilder header = new StringBuilder(128);
+
+    /**
+     * Observation for one stage of the current request. Unsampled requests get
+     * {@link Observation#NOOP} without allocating a context.
+     */
+    public static Observation stage(String name, ObservationRegistry registry) {
+        if (CURRENT.get() == null) {
+            return Observation.NOOP;
+        }
+        return Observation.createNotStarted(OBSERVATION_NAME, registry)
+                .contextualName(name)
+                .lowCardinalityKeyValue("stage", name);
+    }
+
+    static ServerTiming current() {
+        return CURRENT.get();
+    }
+
+    static void bind(ServerTiming timing) {
+        CURRENT.set(timing);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Appends a stage; a stage that runs twice (two queries, say) shows up twice.
+     */
+    public void record(String stage, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        header.append(stage).append(";dur=")
+                .append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+    }
+
+    public String toHeaderValue() {
+        return header.toString();
+    }
+}
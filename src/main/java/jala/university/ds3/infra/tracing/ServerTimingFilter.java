@@ -0,0 +1,68 @@
+package jala.university.ds3.infra.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples a share of requests and reports how their time split across stages
+ * (token, principal, db, serialize, total) in a Server-Timing header. Each stage
+ * is also logged at debug level. Unsampled requests only pay for the coin flip.
+ * Runs ahead of the security chain so "total" includes it.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private final double samplingProbability;
+
+    public ServerTimingFilter(@Value("${api.tracing.sampling-probability:0.0}") double samplingProbability) {
+        this.samplingProbability = samplingProbability;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return samplingProbability <= 0
+                || (samplingProbability < 1 && ThreadLocalRandom.current().nextDouble() >= samplingProbability);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        ServerTiming timing = new ServerTiming();
+        DeferredFlushResponseWrapper deferred = new DeferredFlushResponseWrapper(response);
+
+        ServerTiming.bind(timing);
+        try {
+            filterChain.doFilter(request, deferred);
+        } finally {
+            ServerTiming.unbind();
+            // Async responses report the stages that ran on the request thread
+            timing.record("total", System.nanoTime() - start);
+            if (!response.isCommitted()) {
+                response.setHeader(HEADER, timing.toHeaderValue());
+            }
+            deferred.release();
+            if (log.isDebugEnabled()) {
+                log.debug("{} {} {}", request.getMethod(), request.getRequestURI(), timing.toHeaderValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package jala.university.ds3.infra.tracing;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+
+/**
+ * Adds each finished request stage to the Server-Timing of the request that ran it.
+ * The per-stage timer ("request.stage") comes from the default meter handler.
+ */
+public class ServerTimingObservationHandler implements ObservationHandler<Observation.Context> {
+
+    private static final String START = ServerTimingObservationHandler.class.getName() + ".start";
+
+    @Override
+    public void onStart(Observation.Context context) {
+        context.put(START, System.nanoTime());
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        ServerTiming timing = ServerTiming.current();
+        Long start = context.get(START);
+        KeyValue stage = context.getLowCardinalityKeyValue("stage");
+        if (timing != null && start != null && stage != null) {
+            timing.record(stage.getValue(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return ServerTiming.OBSERVATION_NAME.equals(context.getName());
+    }
+}
@@ -0,0 +1,45 @@
+package jala.university.ds3.infra.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+@Configuration
+public class TracingConfiguration {
+
+    @Bean
+    public ServerTimingObservationHandler serverTimingObservationHandler() {
+        return new ServerTimingObservationHandler();
+    }
+
+    /**
+     * Replaces Boot's Jackson converter with one that reports the "serialize" stage.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   ObservationRegistry observationRegistry) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+                    throws IOException {
+                Observation observation = ServerTiming.stage("serialize", observationRegistry).start();
+                try (Observation.Scope scope = observation.openScope()) {
+                    super.writeInternal(object, type, outputMessage);
+                } catch (IOException | RuntimeException e) {
+                    observation.error(e);
+                    throw e;
+                } finally {
+                    observation.stop();
+                }
+            }
+        };
+    }
+}
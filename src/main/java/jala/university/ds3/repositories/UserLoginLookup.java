@@ -0,0 +1,13 @@
+package jala.university.ds3.repositories;
+
+import jala.university.ds3.domain.user.User;
+
+import java.util.Optional;
+
+/**
+ * Login lookups served from the natural-id cache instead of a derived query.
+ */
+public interface UserLoginLookup {
+
+    Optional<User> findByLogin(String login);
+}
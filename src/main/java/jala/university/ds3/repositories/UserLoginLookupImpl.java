@@ -0,0 +1,27 @@
+package jala.university.ds3.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jala.university.ds3.domain.user.User;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class UserLoginLookupImpl implements UserLoginLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Resolves login to id through the "users-by-login" region, then the entity through
+     * "users"; only misses reach the database. Saves and deletes keep both regions current.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByLogin(String login) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(login);
+    }
+}
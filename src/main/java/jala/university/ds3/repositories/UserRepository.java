@@ -1,17 +1,93 @@
 package jala.university.ds3.repositories;
 
+import jakarta.persistence.QueryHint;
 import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserResponseDTO;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, String> {
+// Query methods run as read-only transactions (replica when configured);
+// save and delete keep SimpleJpaRepository's read-write transactions
+@Transactional(readOnly = true)
+public interface UserRepository extends JpaRepository<User, String>, UserLoginLookup {
 
-    Optional<User> findByLogin(String login);
+    // findByLogin comes from UserLoginLookup (natural-id cache)
     Optional<User> findByLoginIgnoreCase(String login);
 
     // Método simples sem sobrecarga
     Optional<User> findById(String id);
-}
\ No newline at end of file
+
+    // For read-modify-write: a read-write transaction, so the row comes from the primary even
+    // with a replica configured. Callers save in the same transaction (see UserService)
+    @Transactional
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findForUpdateById(String id);
+
+    @Transactional
+    @Query("select u from User u where u.login = :login")
+    Optional<User> findForUpdateByLogin(String login);
+
+    // One round trip to check a whole batch of logins for conflicts
+    @Query("select u.login from User u where u.login in :logins")
+    List<String> findExistingLogins(Collection<String> logins);
+
+    // Read-only projections: select id, name, login, role and version only, no managed entities.
+    // The single-user ones go through the query cache, which any write to users invalidates
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new jala.university.ds3.domain.user.UserResponseDTO(u.id, u.name, u.login, u.role, u.version) "
+            + "from User u where u.login = :login")
+    Optional<UserResponseDTO> findResponseByLogin(String login);
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new jala.university.ds3.domain.user.UserResponseDTO(u.id, u.name, u.login, u.role, u.version) "
+            + "from User u where u.id = :id")
+    Optional<UserResponseDTO> findResponseById(String id);
+
+    // Keyset pagination: first page, then every row after the last id seen
+    @Query("select new jala.university.ds3.domain.user.UserResponseDTO(u.id, u.name, u.login, u.role, u.version) "
+            + "from User u order by u.id")
+    List<UserResponseDTO> findResponsesOrderById(Limit limit);
+
+    @Query("select new jala.university.ds3.domain.user.UserResponseDTO(u.id, u.name, u.login, u.role, u.version) "
+            + "from User u where u.id > :id order by u.id")
+    List<UserResponseDTO> findResponsesAfterId(String id, Limit limit);
+
+    // Same by login, on the unique login index; order and comparison use the same collation
+    @Query("select new jala.university.ds3.domain.user.UserResponseDTO(u.id, u.name, u.login, u.role, u.version) "
+            + "from User u order by u.login")
+    List<UserResponseDTO> findResponsesOrderByLogin(Limit limit);
+
+    @Query("select new jala.university.ds3.domain.user.UserResponseDTO(u.id, u.name, u.login, u.role, u.version) "
+            + "from User u where u.login > :login order by u.login")
+    List<UserResponseDTO> findResponsesAfterLogin(String login, Limit limit);
+
+    // Validator for the whole listing: any insert or update moves max(updated_at), which the
+    // database maintains for every writer, and a delete lowers the count
+    @Query(value = "select count(*) as count, max(updated_at) as lastUpdated from users", nativeQuery = true)
+    UsersFingerprint findUsersFingerprint();
+
+    interface UsersFingerprint {
+        long getCount();
+
+        LocalDateTime getLastUpdated();
+    }
+
+    // Must be consumed inside a transaction and closed; rows are fetched in chunks
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new jala.university.ds3.domain.user.UserResponseDTO(u.id, u.name, u.login, u.role, u.version) "
+            + "from User u order by u.id")
+    Stream<UserResponseDTO> streamResponsesOrderById();
+}
@@ -1,13 +1,20 @@
 package jala.university.ds3.service;
 
 import jala.university.ds3.domain.user.User;
+import jala.university.ds3.infra.security.PasswordHashingExecutor;
 import jala.university.ds3.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @Service
 public class AuthService {
 
@@ -20,6 +27,22 @@ public class AuthService {
     @Autowired
     private TokenService tokenService;
 
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PasswordHashingExecutor hashingExecutor;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
+
+    // Checked for unknown logins, so they take as long as a wrong password
+    private volatile String unknownUserHash;
+
     public String authenticate(String login, String password) throws AuthenticationException {
         // Autenticação via Spring Security
         authenticationManager.authenticate(
@@ -33,4 +56,44 @@ public class AuthService {
         // Gera JWT usando o TokenService
         return tokenService.generateToken(user);
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks a login with only the BCrypt work on the hashing pool: the user is loaded on
+     * the calling thread, the password is verified (and rehashed when its cost is below the
+     * current strength) on the pool, and the rehash is saved on the task executor.
+     *
+     * @return the user, or empty when the login or the password is wrong
+     * @throws jala.university.ds3.Exceptions.ServiceUnavailableException when the hashing queue is full
+     */
+    public CompletableFuture<Optional<User>> verify(String login, String password) {
+        Optional<User> user = userRepository.findByLogin(login);
+        return hashingExecutor.submit(() -> {
+                    String hash = user.map(User::getPassword).orElseGet(this::unknownUserHash);
+                    boolean matches = passwordEncoder.matches(password, hash);
+                    if (user.isEmpty() || !matches) {
+                        return Optional.<Verified>empty();
+                    }
+                    String rehash = passwordEncoder.upgradeEncoding(hash) ? passwordEncoder.encode(password) : null;
+                    return Optional.of(new Verified(user.get(), rehash));
+                })
+                .thenApplyAsync(verified -> verified.map(this::saveRehash), taskExecutor);
+    }
+
+    private User saveRehash(Verified verified) {
+        if (verified.rehash() == null) {
+            return verified.user();
+        }
+        return (User) authorizationService.updatePassword(verified.user(), verified.rehash());
+    }
+
+    private String unknownUserHash() {
+        String hash = unknownUserHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode("unknown-user");
+            unknownUserHash = hash;
+        }
+        return hash;
+    }
+
+    private record Verified(User user, String rehash) {}
+}
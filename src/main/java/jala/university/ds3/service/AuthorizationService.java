@@ -1,19 +1,28 @@
 package jala.university.ds3.service;
 
 
+import jala.university.ds3.infra.security.PrincipalCache;
 import jala.university.ds3.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class AuthorizationService implements UserDetailsService {
+public class AuthorizationService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    PrincipalCache principalCache;
+
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -21,4 +30,23 @@ public class AuthorizationService implements UserDetailsService {
         return userRepository.findByLogin(username)
                 .orElseThrow(() -> new UsernameNotFoundException(username));
     }
-}
\ No newline at end of file
+
+    /**
+     * Called by the authentication provider after a successful login when the stored
+     * hash uses another BCrypt cost than the current one; newPassword is the rehash.
+     * A concurrent update of the user wins: the rehash is retried on the next login.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        try {
+            return userService.updatePassword(user.getUsername(), newPassword)
+                    .map(saved -> {
+                        principalCache.evict(saved.getLogin());
+                        return (UserDetails) saved;
+                    })
+                    .orElse(user);
+        } catch (OptimisticLockingFailureException e) {
+            return user;
+        }
+    }
+}
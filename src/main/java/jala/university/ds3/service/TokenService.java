@@ -1,31 +1,83 @@
 package jala.university.ds3.service;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jala.university.ds3.domain.user.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class TokenService {
 
-    @Value("${api.security.token.secret:default-secret-key}")
-    private String secret;
+    private static final String ISSUER = "ds3-api";
+    // The registered iat claim has whole seconds; revocation checks need the millisecond
+    private static final String ISSUED_AT_MILLIS = "iatMs";
+
+    // Algorithm and JWTVerifier are immutable and thread-safe, so they are built once
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+
+    // Verified tokens keyed by their SHA-256 digest, kept until the token expires
+    private final Cache<ByteBuffer, DecodedJWT> verifiedTokens;
+
+    private final Timer generateTimer;
+    private final Timer validTimer;
+    private final Timer invalidTimer;
+
+    public TokenService(@Value("${api.security.token.secret:default-secret-key}") String secret,
+                        @Value("${api.security.token.cache-size:10000}") long cacheSize,
+                        MeterRegistry meterRegistry) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
+                .withIssuer(ISSUER)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "verifiedTokens");
+
+        this.generateTimer = timer(meterRegistry, "security.token.generate", "success");
+        this.validTimer = timer(meterRegistry, "security.token.validate", "valid");
+        this.invalidTimer = timer(meterRegistry, "security.token.validate", "invalid");
+    }
 
     public String generateToken(User user) {
+        return generateTimer.record(() -> sign(user));
+    }
+
+    private String sign(User user) {
+        Instant issuedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret);
             return JWT.create()
-                    .withIssuer("ds3-api")
+                    .withIssuer(ISSUER)
                     .withSubject(user.getLogin())
                     .withClaim("userId", user.getId().toString())
                     .withClaim("role", user.getRole().name())
+                    .withIssuedAt(issuedAt)
+                    .withClaim(ISSUED_AT_MILLIS, issuedAt.toEpochMilli())
                     .withExpiresAt(genExpirationDate())
                     .sign(algorithm);
         } catch (JWTCreationException exception) {
@@ -34,19 +86,80 @@ public class TokenService {
     }
 
     public String validateToken(String token) {
+        DecodedJWT decoded = decodeToken(token);
+        return decoded == null ? null : decoded.getSubject();
+    }
+
+    /**
+     * Verifies the token and returns all of its claims, or null when invalid.
+     */
+    public DecodedJWT decodeToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        // Invalid tokens resolve to null, which Caffeine does not store
+        DecodedJWT decoded = verifiedTokens.get(digest(token), key -> verify(token));
+        (decoded == null ? invalidTimer : validTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return decoded;
+    }
+
+    /**
+     * Issue time of a verified token at millisecond precision. Tokens signed before the
+     * millisecond claim was added fall back to the start of their iat second.
+     */
+    public static Instant issuedAt(DecodedJWT decoded) {
+        Long millis = decoded.getClaim(ISSUED_AT_MILLIS).asLong();
+        return millis != null ? Instant.ofEpochMilli(millis) : decoded.getIssuedAtAsInstant();
+    }
+
+    private DecodedJWT verify(String token) {
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret);
-            return JWT.require(algorithm)
-                    .withIssuer("ds3-api")
-                    .build()
-                    .verify(token)
-                    .getSubject();
+            return verifier.verify(token);
         } catch (JWTVerificationException exception) {
             return null;
         }
     }
 
+    private static Timer timer(MeterRegistry meterRegistry, String name, String result) {
+        return Timer.builder(name)
+                .description("JWT signing and verification time, cache lookups included")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     private Instant genExpirationDate() {
         return LocalDateTime.now().plusHours(2).toInstant(ZoneOffset.of("-03:00"));
     }
-}
\ No newline at end of file
+
+    private static final class UntilTokenExpires implements Expiry<ByteBuffer, DecodedJWT> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, DecodedJWT value, long currentTime) {
+            Instant expiresAt = value.getExpiresAtAsInstant();
+            if (expiresAt == null) {
+                return 0;
+            }
+            return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, DecodedJWT value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, DecodedJWT value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
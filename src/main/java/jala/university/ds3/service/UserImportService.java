@@ -0,0 +1,212 @@
+package jala.university.ds3.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jala.university.ds3.domain.user.RegisterDTO;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.dto.BulkRegisterResponse;
+import jala.university.ds3.dto.BulkRegisterResult;
+import jala.university.ds3.infra.security.PasswordHashingExecutor;
+import jala.university.ds3.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Bulk registration for onboarding users from the legacy system.
+ * Input is read as a stream and handled in batches: one IN query for login
+ * conflicts, parallel password hashing and one batched INSERT per batch.
+ * Each batch commits on its own, so earlier batches stay imported if a later one fails.
+ * <p>
+ * Hashes run on the shared PasswordHashingExecutor, at most maxConcurrentHashes at a time
+ * per import, so an import leaves room for logins and is shed with 503 like them when the
+ * hashing queue is full.
+ */
+@Service
+public class UserImportService {
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final int maxConcurrentHashes;
+
+    public UserImportService(UserRepository userRepository, UserService userService,
+                             PasswordEncoder passwordEncoder, PasswordHashingExecutor hashingExecutor,
+                             Validator validator, ObjectMapper objectMapper,
+                             @Value("${api.users.import.batch-size:500}") int batchSize,
+                             @Value("${api.users.import.max-concurrent-hashes:4}") int maxConcurrentHashes) {
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.hashingExecutor = hashingExecutor;
+        this.maxConcurrentHashes = maxConcurrentHashes;
+    }
+
+    /**
+     * Reads a JSON array or newline-delimited JSON objects of RegisterDTO and
+     * returns one result per item. Reading stops at the first syntax error,
+     * which is reported as INVALID; everything before it is still imported.
+     */
+    public BulkRegisterResponse importUsers(InputStream input) throws IOException {
+        List<BulkRegisterResult> results = new ArrayList<>();
+        List<JsonNode> batch = new ArrayList<>(batchSize);
+
+        // Items are read as trees so a value that does not bind (e.g. an unknown role)
+        // only rejects that item; broken JSON syntax ends the stream
+        try (MappingIterator<JsonNode> items = objectMapper.readerFor(JsonNode.class).readValues(input)) {
+            while (items.hasNextValue()) {
+                batch.add(items.nextValue());
+                if (batch.size() == batchSize) {
+                    results.addAll(registerBatch(batch, results.size()));
+                    batch.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            results.addAll(registerBatch(batch, results.size()));
+            results.add(BulkRegisterResult.invalid(results.size(), null,
+                    List.of("Malformed JSON: " + e.getOriginalMessage())));
+            return BulkRegisterResponse.of(results);
+        }
+
+        results.addAll(registerBatch(batch, results.size()));
+        return BulkRegisterResponse.of(results);
+    }
+
+    private List<BulkRegisterResult> registerBatch(List<JsonNode> nodes, int firstIndex) {
+        BulkRegisterResult[] results = new BulkRegisterResult[nodes.size()];
+        RegisterDTO[] batch = new RegisterDTO[nodes.size()];
+        // Lower-cased login -> position in the batch, in input order
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            RegisterDTO item;
+            try {
+                item = objectMapper.treeToValue(nodes.get(i), RegisterDTO.class);
+            } catch (JsonProcessingException e) {
+                results[i] = BulkRegisterResult.invalid(firstIndex + i, nodes.get(i).path("login").asText(null),
+                        List.of("Invalid item: " + e.getOriginalMessage()));
+                continue;
+            }
+            if (item == null) {
+                results[i] = BulkRegisterResult.invalid(firstIndex + i, null, List.of("Item is empty"));
+                continue;
+            }
+            batch[i] = item;
+
+            String login = item.login() == null ? null : item.login().trim();
+            List<String> errors = validate(item);
+
+            if (!errors.isEmpty()) {
+                results[i] = BulkRegisterResult.invalid(firstIndex + i, login, errors);
+            } else if (candidates.putIfAbsent(login.toLowerCase(Locale.ROOT), i) != null) {
+                results[i] = BulkRegisterResult.conflict(firstIndex + i, login);
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            List<String> logins = candidates.values().stream()
+                    .map(i -> batch[i].login().trim())
+                    .toList();
+            for (String existing : userRepository.findExistingLogins(logins)) {
+                Integer i = candidates.remove(existing.toLowerCase(Locale.ROOT));
+                if (i != null) {
+                    results[i] = BulkRegisterResult.conflict(firstIndex + i, existing);
+                }
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            insert(batch, firstIndex, candidates.values(), results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void insert(RegisterDTO[] batch, int firstIndex, Collection<Integer> positions,
+                        BulkRegisterResult[] results) {
+        Semaphore permits = new Semaphore(maxConcurrentHashes);
+        Map<Integer, Future<String>> hashes = new LinkedHashMap<>();
+        for (Integer i : positions) {
+            String password = batch[i].password();
+            acquire(permits);
+            CompletableFuture<String> hash;
+            try {
+                hash = hashingExecutor.submit(() -> passwordEncoder.encode(password));
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            hashes.put(i, hash.whenComplete((encoded, failure) -> permits.release()));
+        }
+
+        Map<Integer, User> users = new LinkedHashMap<>();
+        hashes.forEach((i, hash) -> {
+            RegisterDTO item = batch[i];
+            users.put(i, new User(item.name(), item.login().trim(), await(hash), item.role()));
+        });
+
+        try {
+            userService.insertAll(new ArrayList<>(users.values()));
+        } catch (DataIntegrityViolationException e) {
+            // A login was taken between the IN query and the insert; fall back to row by row.
+            // The rolled-back persist left versions on the entities, so each row is retried as a new one
+            users.replaceAll((i, user) -> new User(user.getName(), user.getLogin(), user.getPassword(), user.getRole()));
+            users.forEach((i, user) -> {
+                try {
+                    userService.insertAll(List.of(user));
+                } catch (DataIntegrityViolationException conflict) {
+                    results[i] = BulkRegisterResult.conflict(firstIndex + i, user.getLogin());
+                }
+            });
+        }
+
+        users.forEach((i, user) -> {
+            if (results[i] == null) {
+                results[i] = BulkRegisterResult.created(firstIndex + i, user.getLogin(), user.getId());
+            }
+        });
+    }
+
+    private List<String> validate(RegisterDTO item) {
+        return validator.validate(item).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+    }
+
+    private static void acquire(Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        }
+    }
+
+    private static String await(Future<String> hash) {
+        try {
+            return hash.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -1,27 +1,95 @@
 package jala.university.ds3.service;
 
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
 import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserResponseDTO;
 import jala.university.ds3.repositories.UserRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
+    private final EntityManager entityManager;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, EntityManager entityManager) {
         this.userRepository = userRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Reads a user and saves {@code changes} in one read-write transaction, so both run on the
+     * primary and the UPDATE checks the version that was read, never a lagging replica's.
+     * {@code changes} may throw to reject the update. Caches are left to the caller, to evict
+     * once this has committed.
+     * @return the saved user, or empty when there is no user with this id
+     */
+    @Transactional
+    public Optional<User> updateUser(String id, Consumer<User> changes) {
+        return userRepository.findForUpdateById(id)
+                .map(user -> {
+                    changes.accept(user);
+                    return userRepository.saveAndFlush(user);
+                });
     }
 
-    public User updateUser(String id, User updatedUser) {
-        return userRepository.findById(id)
+    /**
+     * Same as {@link #updateUser} for a password rehash, looked up by login.
+     */
+    @Transactional
+    public Optional<User> updatePassword(String login, String encodedPassword) {
+        return userRepository.findForUpdateByLogin(login)
                 .map(user -> {
-                    user.setName(updatedUser.getName());
-                    user.setLogin(updatedUser.getLogin());
-                    user.setPassword(updatedUser.getPassword());
-                    return userRepository.save(user);
-                })
-                .orElseThrow(() -> new RuntimeException("User not found with id " + id));
+                    user.setPassword(encodedPassword);
+                    return userRepository.saveAndFlush(user);
+                });
+    }
+
+    /**
+     * Reads a user from the primary and deletes it in one transaction once {@code check} accepts it.
+     * @return the deleted user, or empty when there is no user with this id
+     */
+    @Transactional
+    public Optional<User> deleteUser(String id, Consumer<User> check) {
+        return userRepository.findForUpdateById(id)
+                .map(user -> {
+                    check.accept(user);
+                    userRepository.delete(user);
+                    return user;
+                });
+    }
+
+    /**
+     * Visits every user ordered by id without holding the whole table in memory.
+     * Rows are read as projections, so nothing accumulates in the persistence context.
+     */
+    @Transactional(readOnly = true)
+    public void forEachUser(Consumer<UserResponseDTO> action) {
+        try (Stream<UserResponseDTO> users = userRepository.streamResponsesOrderById()) {
+            users.forEach(action);
+        }
+    }
+
+    /**
+     * Inserts new users in one transaction; persist goes straight to INSERTs that
+     * Hibernate sends as JDBC batches. New rows are not put in the
+     * second-level cache, so an import does not push out the users being read.
+     * A taken login fails the flush with a DataIntegrityViolationException: it goes through
+     * the repository, whose proxy translates Hibernate's exceptions.
+     */
+    @Transactional
+    public void insertAll(List<User> users) {
+        entityManager.setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+        users.forEach(entityManager::persist);
+        userRepository.flush();
+        entityManager.clear();
     }
 }
 
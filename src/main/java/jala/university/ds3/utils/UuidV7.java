@@ -0,0 +1,37 @@
+package jala.university.ds3.utils;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Time-ordered UUIDs (RFC 9562 version 7): 48-bit Unix milliseconds followed by random bits.
+ * New ids sort by creation time, so inserts append to the clustered primary key
+ * instead of landing on random pages.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private UuidV7() {
+    }
+
+    public static UUID randomUUID() {
+        return fromTimestamp(System.currentTimeMillis());
+    }
+
+    static UUID fromTimestamp(long epochMillis) {
+        byte[] random = new byte[10];
+        RANDOM.nextBytes(random);
+
+        long msb = (epochMillis & 0xFFFF_FFFF_FFFFL) << 16;
+        msb |= 0x7000L;                                            // version 7
+        msb |= ((random[0] & 0x0FL) << 8) | (random[1] & 0xFFL);   // rand_a, 12 bits
+
+        long lsb = 0x8000_0000_0000_0000L;                         // IETF variant
+        lsb |= (random[2] & 0x3FL) << 56;
+        for (int i = 3; i < 10; i++) {
+            lsb |= (random[i] & 0xFFL) << (8 * (9 - i));
+        }
+        return new UUID(msb, lsb);
+    }
+}
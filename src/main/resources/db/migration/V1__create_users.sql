@@ -0,0 +1,12 @@
+-- Baseline schema of the users table shared with the legacy system.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate).
+CREATE TABLE IF NOT EXISTS users
+(
+    `id`       VARCHAR(36)  NOT NULL,
+    `name`     VARCHAR(200) NOT NULL,
+    `login`    VARCHAR(20)  NOT NULL,
+    `password` VARCHAR(100) NOT NULL,
+    `role`     VARCHAR(20)  NOT NULL,
+    PRIMARY KEY (`id`),
+    UNIQUE INDEX `id_UNIQUE` (`id` ASC)
+);
@@ -0,0 +1,19 @@
+-- Transactional outbox feeding the legacy sync (infra.sync.LegacySyncConfiguration).
+-- A row is written in the same transaction as each users insert, update or delete,
+-- and removed once the legacy side has received that change or a newer one.
+CREATE TABLE user_outbox
+(
+    `id`              BIGINT        NOT NULL AUTO_INCREMENT,
+    `user_id`         BINARY(16)    NOT NULL,
+    `event_type`      VARCHAR(16)   NOT NULL,
+    `payload`         VARCHAR(1024) NOT NULL,
+    `status`          VARCHAR(16)   NOT NULL DEFAULT 'PENDING',
+    `attempts`        INT           NOT NULL DEFAULT 0,
+    `next_attempt_at` TIMESTAMP(3)  NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    `last_error`      VARCHAR(500)  NULL,
+    PRIMARY KEY (`id`)
+);
+
+-- The poller reads pending rows in id order; superseded rows are deleted per user
+CREATE INDEX user_outbox_pending ON user_outbox (`status`, `id`);
+CREATE INDEX user_outbox_user ON user_outbox (`user_id`, `id`);
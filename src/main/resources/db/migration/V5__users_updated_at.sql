@@ -0,0 +1,8 @@
+-- Change-detection column for writes made directly by the legacy system
+-- (infra.sync.UserChangeDetector). The database maintains it for every writer,
+-- so it is not mapped on the User entity.
+ALTER TABLE users
+    ADD COLUMN `updated_at` TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+
+-- High-water-mark scans read (updated_at, id) in order
+CREATE INDEX users_updated_at ON users (`updated_at`, `id`);
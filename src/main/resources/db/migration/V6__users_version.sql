@@ -0,0 +1,5 @@
+-- Optimistic locking (User.version): every update through the API checks and increments it.
+-- Rows inserted by the legacy system start at 0; it has to increment the column on update
+-- for its own writes to be detected as conflicts.
+ALTER TABLE users
+    ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0;
@@ -2,281 +2,519 @@ package jala.university.ds3.Client;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.http.*;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.HttpClientErrorException;
-
-import java.util.HashMap;
+import jala.university.ds3.Ds3Application;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.atomic.AtomicInteger;
-
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Concurrent load generator for the user API.
+ *
+ * <pre>
+ * --base-url=http://localhost:8080   target API (ignored with --embedded)
+ * --embedded                         start the app in-process with the H2 profile
+ * --profile=h2                       Spring profile(s) of the embedded app (e.g. "default" for MySQL)
+ * --rate-limits                      keep the embedded app's rate and login limits (off by default)
+ * --server-threads=platform|virtual  request threads of the embedded app (virtual needs Java 21)
+ * --server-threads=compare           run the same load against both modes and compare them
+ * --tomcat-max-threads=200           Tomcat pool size of the embedded app in platform mode
+ * --workers=50                       concurrent workers (virtual threads when the JVM supports them)
+ * --mode=closed|open                 closed: each worker loops; open: fixed arrival rate
+ * --rate=200                         requests per second in open mode
+ * --duration=30s                     measurement time
+ * --users=20                         users seeded before the run
+ * --mix=currentUser=50,getById=25,listUsers=5,updateUser=10,login=10
+ * </pre>
+ * Embedded runs add the "load" profile, which turns off the per-route rate limits and the
+ * login throttling; a handful of seeded users would otherwise see mostly 429s. Responses with 429 are
+ * reported in their own column and not counted as errors.
+ */
 public class ApiTestClient {
 
-    private static final String BASE_URL = "http://localhost:8080";
-    private static final String AUTH_LOGIN_URL = BASE_URL + "/auth/login";
-    private static final String AUTH_REGISTER_URL = BASE_URL + "/auth/register";
-    private static final String USERS_URL = BASE_URL + "/users";
+    enum Endpoint {
+        LOGIN("login"),
+        CURRENT_USER("currentUser"),
+        GET_BY_ID("getById"),
+        LIST_USERS("listUsers"),
+        UPDATE_USER("updateUser");
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private String adminToken;
+        private final String key;
 
-    // Statistics
-    private final AtomicInteger successCount = new AtomicInteger(0);
-    private final AtomicInteger failureCount = new AtomicInteger(0);
+        Endpoint(String key) {
+            this.key = key;
+        }
 
-    public static void main(String[] args) {
-        ApiTestClient client = new ApiTestClient();
+        static Endpoint fromKey(String key) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.key.equalsIgnoreCase(key)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("Unknown endpoint in mix: " + key);
+        }
+    }
 
-        int numberOfUsers = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    record SeedUser(String login, String password, String id, String token) {}
 
-        System.out.println("=".repeat(60));
-        System.out.println("API TEST CLIENT - USER CRUD OPERATIONS");
-        System.out.println("Testing with " + numberOfUsers + " users");
-        System.out.println("=".repeat(60));
+    record Summary(String label, long requests, long errors, long throttled, double throughput, double p99Millis, double maxMillis) {}
 
-        client.runTests(numberOfUsers);
+    static final class EndpointStats {
+        final Histogram latencyMicros = new ConcurrentHistogram(3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder throttled = new LongAdder();
     }
 
-    public void runTests(int numberOfUsers) {
-        try {
-            // Step 1: Create admin user and get token
-            createAdminAndGetToken();
+    private static final String ADMIN_LOGIN = "loadadmin";
+    private static final String ADMIN_PASSWORD = "admin123";
 
-            // Step 2: Test user operations
-            testUserCrudOperations(numberOfUsers);
+    private final Map<String, String> options;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
 
-            // Step 3: Print results
-            printResults();
+    private String baseUrl;
+    private String adminToken;
+    private List<SeedUser> users = new ArrayList<>();
+    private Endpoint[] weightedEndpoints;
 
-        } catch (Exception e) {
-            System.err.println("Error during test execution: " + e.getMessage());
-            e.printStackTrace();
+    public ApiTestClient(Map<String, String> options) {
+        this.options = options;
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
         }
     }
 
-    private void createAdminAndGetToken() {
-        System.out.println("\n1. Setting up admin user...");
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        if ("compare".equals(options.get("server-threads"))) {
+            compareServerThreads(options);
+        } else {
+            new ApiTestClient(options).run();
+        }
+    }
 
-        try {
-            // Try to create admin user
-            Map<String, Object> adminData = new HashMap<>();
-            adminData.put("name", "Test Admin");
-            adminData.put("login", "testadmin");
-            adminData.put("password", "admin123");
-            adminData.put("role", "ADMIN");
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(adminData, headers);
-
-            try {
-                restTemplate.postForEntity(AUTH_REGISTER_URL, request, String.class);
-                System.out.println("   ✓ Admin user created successfully");
-            } catch (HttpClientErrorException.Conflict e) {
-                System.out.println("   ⚠ Admin user already exists");
-            }
+    /**
+     * Runs the same scenario against a fresh embedded app on platform threads,
+     * then on virtual threads, and prints both totals side by side.
+     */
+    private static void compareServerThreads(Map<String, String> options) throws Exception {
+        if (!supportsVirtualThreads()) {
+            throw new IllegalStateException("--server-threads=compare needs Java 21 (build with -P java21)");
+        }
+        List<Summary> summaries = new ArrayList<>();
+        for (String threads : List.of("platform", "virtual")) {
+            Map<String, String> runOptions = new LinkedHashMap<>(options);
+            runOptions.put("embedded", "true");
+            runOptions.put("server-threads", threads);
+            summaries.add(new ApiTestClient(runOptions).run());
+        }
 
-            // Login and get token
-            Map<String, String> loginData = new HashMap<>();
-            loginData.put("login", "testadmin");
-            loginData.put("password", "admin123");
+        System.out.println("\n" + "=".repeat(89));
+        System.out.println("SERVER THREADS COMPARISON");
+        System.out.println("=".repeat(89));
+        System.out.printf("%-10s %10s %8s %8s %10s %10s %10s%n",
+                "threads", "requests", "errors", "429", "req/s", "p99 ms", "max ms");
+        for (Summary summary : summaries) {
+            System.out.printf("%-10s %10d %8d %8d %10.1f %10.2f %10.2f%n", summary.label(), summary.requests(),
+                    summary.errors(), summary.throttled(), summary.throughput(), summary.p99Millis(),
+                    summary.maxMillis());
+        }
+        System.out.println("=".repeat(89));
+    }
 
-            HttpEntity<Map<String, String>> loginRequest = new HttpEntity<>(loginData, headers);
-            ResponseEntity<String> loginResponse = restTemplate.postForEntity(AUTH_LOGIN_URL, loginRequest, String.class);
+    public Summary run() throws Exception {
+        ConfigurableApplicationContext app = null;
+        String serverThreads = options.getOrDefault("server-threads", "platform");
+        if (options.containsKey("embedded")) {
+            // DevTools would otherwise relaunch main() with the Spring arguments
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            app = SpringApplication.run(Ds3Application.class, embeddedArgs(serverThreads));
+            baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+        } else {
+            baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        }
 
-            JsonNode loginResult = objectMapper.readTree(loginResponse.getBody());
-            adminToken = loginResult.get("token").asText();
+        int workers = intOption("workers", 50);
+        int userCount = intOption("users", 20);
+        String mode = options.getOrDefault("mode", "closed");
+        Duration duration = Duration.parse("PT" + options.getOrDefault("duration", "30s").toUpperCase());
+        weightedEndpoints = parseMix(options.getOrDefault("mix",
+                "currentUser=50,getById=25,listUsers=5,updateUser=10,login=10"));
 
-            System.out.println("   ✓ Admin token obtained successfully");
+        System.out.println("=".repeat(60));
+        System.out.println("API LOAD TEST - " + baseUrl);
+        System.out.println("Mode: " + mode + ", workers: " + workers + ", duration: " + duration
+                + ("open".equals(mode) ? ", rate: " + intOption("rate", 200) + "/s" : ""));
+        System.out.println("Client threads: " + (supportsVirtualThreads() ? "virtual" : "platform")
+                + (options.containsKey("embedded") ? ", server threads: " + serverThreads : ""));
+        System.out.println("=".repeat(60));
 
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to setup admin user: " + e.getMessage(), e);
+        try {
+            setUp(userCount, workers);
+
+            long elapsedNanos = "open".equals(mode)
+                    ? runOpenLoop(workers, intOption("rate", 200), duration)
+                    : runClosedLoop(workers, duration);
+
+            Summary summary = printResults(serverThreads, elapsedNanos);
+            tearDown(workers);
+            return summary;
+        } finally {
+            if (app != null) {
+                app.close();
+            }
         }
     }
 
-    private void testUserCrudOperations(int numberOfUsers) {
-        System.out.println("\n2. Testing CRUD operations for " + numberOfUsers + " users...");
+    private String[] embeddedArgs(String serverThreads) {
+        List<String> args = new ArrayList<>();
+        String profiles = options.getOrDefault("profile", "h2");
+        if (!options.containsKey("rate-limits")) {
+            profiles += ",load";
+        }
+        if ("virtual".equals(serverThreads)) {
+            // The "virtual" profile turns on spring.threads.virtual.enabled and its pool settings
+            profiles += ",virtual";
+        } else if (options.containsKey("tomcat-max-threads")) {
+            args.add("--server.tomcat.threads.max=" + options.get("tomcat-max-threads"));
+        }
+        args.add("--spring.profiles.active=" + profiles);
+        args.add("--server.port=0");
+        return args.toArray(new String[0]);
+    }
 
-        String[] createdUserIds = new String[numberOfUsers];
-        Random random = new Random();
+    // ---------------------------------------------------------------- setup
 
-        // CREATE operations
-        System.out.println("\n   Creating users...");
-        for (int i = 0; i < numberOfUsers; i++) {
-            String userId = createTestUser("testuser" + i, "User " + i, "password" + i);
-            createdUserIds[i] = userId;
-        }
+    private void setUp(int userCount, int workers) throws Exception {
+        System.out.println("\n1. Seeding admin and " + userCount + " users...");
+
+        register(ADMIN_LOGIN, "Load Admin", ADMIN_PASSWORD, "ADMIN");
+        adminToken = login(ADMIN_LOGIN, ADMIN_PASSWORD);
 
-        // READ operations
-        System.out.println("\n   Reading users...");
-        for (String userId : createdUserIds) {
-            if (userId != null) {
-                readUser(userId);
+        List<SeedUser> seeded = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = newWorkerExecutor(workers);
+        try {
+            for (int i = 0; i < userCount; i++) {
+                String login = "loaduser" + i;
+                String password = "password" + i;
+                executor.execute(() -> {
+                    try {
+                        register(login, "Load User", password, "USER");
+                        String token = login(login, password);
+                        JsonNode current = objectMapper.readTree(
+                                send(get("/users/currentUser", token)).body());
+                        seeded.add(new SeedUser(login, password, current.get("id").asText(), token));
+                    } catch (Exception e) {
+                        System.out.println("   ✗ Failed to seed " + login + ": " + e.getMessage());
+                    }
+                });
             }
+        } finally {
+            awaitTermination(executor);
+        }
+        users = new ArrayList<>(seeded);
+
+        if (users.isEmpty()) {
+            throw new IllegalStateException("No users could be seeded");
         }
+        System.out.println("   ✓ " + users.size() + " users ready");
+    }
 
-        // UPDATE operations
-        System.out.println("\n   Updating users...");
-        for (String userId : createdUserIds) {
-            if (userId != null) {
-                updateUser(userId, "Updated Name " + random.nextInt(1000));
+    private void tearDown(int workers) {
+        System.out.println("\n3. Removing seeded users...");
+        ExecutorService executor = newWorkerExecutor(workers);
+        try {
+            for (SeedUser user : users) {
+                executor.execute(() -> {
+                    try {
+                        send(request("/users/" + user.id(), adminToken).DELETE().build());
+                    } catch (Exception e) {
+                        System.out.println("   ✗ Failed to delete " + user.login() + ": " + e.getMessage());
+                    }
+                });
             }
+        } finally {
+            awaitTermination(executor);
         }
+    }
+
+    // ---------------------------------------------------------------- load
+
+    /**
+     * Every worker issues its next request as soon as the previous one completes.
+     */
+    private long runClosedLoop(int workers, Duration duration) {
+        System.out.println("\n2. Running closed-loop load...");
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
 
-        // DELETE operations
-        System.out.println("\n   Deleting users...");
-        for (String userId : createdUserIds) {
-            if (userId != null) {
-                deleteUser(userId);
+        ExecutorService executor = newWorkerExecutor(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                executor.execute(() -> {
+                    while (System.nanoTime() < end) {
+                        execute(nextEndpoint(), System.nanoTime());
+                    }
+                });
             }
+        } finally {
+            awaitTermination(executor);
         }
+        return System.nanoTime() - start;
     }
 
-    private String createTestUser(String login, String name, String password) {
+    /**
+     * Requests are issued on a fixed schedule regardless of how fast the server answers.
+     * Latency is measured from the intended start time, so queueing is not hidden
+     * (coordinated omission).
+     */
+    private long runOpenLoop(int workers, int rate, Duration duration) {
+        System.out.println("\n2. Running open-loop load at " + rate + " req/s...");
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        Semaphore inFlight = new Semaphore(workers);
+
+        ExecutorService executor = newWorkerExecutor(workers);
         try {
-            Map<String, Object> userData = new HashMap<>();
-            userData.put("name", name);
-            userData.put("login", login);
-            userData.put("password", password);
-            userData.put("role", "USER");
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(userData, headers);
-
-            ResponseEntity<String> response = restTemplate.postForEntity(AUTH_REGISTER_URL, request, String.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                successCount.incrementAndGet();
-                System.out.println("     ✓ Created user: " + login);
-                return login; // In this case, we'll use login as ID for simplicity
+            for (long i = 0; ; i++) {
+                long intendedStart = start + i * interval;
+                if (intendedStart >= end) {
+                    break;
+                }
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Endpoint endpoint = nextEndpoint();
+                executor.execute(() -> {
+                    inFlight.acquireUninterruptibly();
+                    try {
+                        execute(endpoint, intendedStart);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
             }
+        } finally {
+            awaitTermination(executor);
+        }
+        return System.nanoTime() - start;
+    }
 
-        } catch (HttpClientErrorException e) {
-            failureCount.incrementAndGet();
-            System.out.println("     ✗ Failed to create user " + login + ": " + e.getStatusCode());
+    private void execute(Endpoint endpoint, long startNanos) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        try {
+            int status = send(buildRequest(endpoint)).statusCode();
+            if (status == 429) {
+                endpointStats.throttled.increment();
+            } else if (status < 200 || status >= 300) {
+                endpointStats.errors.increment();
+            }
         } catch (Exception e) {
-            failureCount.incrementAndGet();
-            System.out.println("     ✗ Failed to create user " + login + ": " + e.getMessage());
+            endpointStats.errors.increment();
         }
+        endpointStats.latencyMicros.recordValue(
+                Math.max(0, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos)));
+    }
 
-        return null;
+    private HttpRequest buildRequest(Endpoint endpoint) {
+        SeedUser user = users.get(ThreadLocalRandom.current().nextInt(users.size()));
+        return switch (endpoint) {
+            case LOGIN -> post("/auth/login",
+                    "{\"login\":\"" + user.login() + "\",\"password\":\"" + user.password() + "\"}", null);
+            case CURRENT_USER -> get("/users/currentUser", user.token());
+            case GET_BY_ID -> get("/users/id?id=" + user.id(), user.token());
+            case LIST_USERS -> get("/users", adminToken);
+            case UPDATE_USER -> request("/users/" + user.id(), user.token())
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(
+                            "{\"name\":\"Load User " + ThreadLocalRandom.current().nextInt(1000) + "\"}"))
+                    .build();
+        };
     }
 
-    private void readUser(String login) {
-        try {
-            // First login as the user to get their token
-            Map<String, String> loginData = new HashMap<>();
-            loginData.put("login", login);
-            loginData.put("password", "password" + login.replace("testuser", ""));
-
-            HttpHeaders loginHeaders = new HttpHeaders();
-            loginHeaders.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, String>> loginRequest = new HttpEntity<>(loginData, loginHeaders);
-
-            ResponseEntity<String> loginResponse = restTemplate.postForEntity(AUTH_LOGIN_URL, loginRequest, String.class);
-            JsonNode loginResult = objectMapper.readTree(loginResponse.getBody());
-            String userToken = loginResult.get("token").asText();
-
-            // Now get current user info
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(userToken);
-            HttpEntity<Void> request = new HttpEntity<>(headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    USERS_URL + "/currentUser",
-                    HttpMethod.GET,
-                    request,
-                    String.class
-            );
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                successCount.incrementAndGet();
-                System.out.println("     ✓ Read user: " + login);
-            }
+    private Endpoint nextEndpoint() {
+        return weightedEndpoints[ThreadLocalRandom.current().nextInt(weightedEndpoints.length)];
+    }
 
-        } catch (Exception e) {
-            failureCount.incrementAndGet();
-            System.out.println("     ✗ Failed to read user " + login + ": " + e.getMessage());
+    // ---------------------------------------------------------------- http
+
+    private void register(String login, String name, String password, String role) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "name", name, "login", login, "password", password, "role", role));
+        int status = send(post("/auth/register", body, null)).statusCode();
+        if (status != 201 && status != 409) {
+            throw new IllegalStateException("Register " + login + " returned " + status);
         }
     }
 
-    private void updateUser(String userId, String newName) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(adminToken);
-            headers.setContentType(MediaType.APPLICATION_JSON);
+    private String login(String login, String password) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("login", login, "password", password));
+        HttpResponse<String> response = send(post("/auth/login", body, null));
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login " + login + " returned " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
 
-            Map<String, String> updateData = new HashMap<>();
-            updateData.put("name", newName);
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
 
-            HttpEntity<Map<String, String>> request = new HttpEntity<>(updateData, headers);
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
 
-            ResponseEntity<String> response = restTemplate.exchange(
-                    USERS_URL + "/" + userId,
-                    HttpMethod.PUT,
-                    request,
-                    String.class
-            );
+    private HttpRequest post(String path, String json, String token) {
+        return request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
 
-            if (response.getStatusCode().is2xxSuccessful()) {
-                successCount.incrementAndGet();
-                System.out.println("     ✓ Updated user: " + userId);
+    // ---------------------------------------------------------------- report
+
+    private Summary printResults(String label, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+
+        System.out.println("\n" + "=".repeat(105));
+        System.out.println("LOAD TEST RESULTS (" + String.format("%.1f", seconds) + " s)");
+        System.out.println("=".repeat(105));
+        System.out.printf("%-14s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "429", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        long totalThrottled = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            EndpointStats endpointStats = stats.get(endpoint);
+            Histogram histogram = endpointStats.latencyMicros.copy();
+            if (histogram.getTotalCount() == 0) {
+                continue;
             }
+            total.add(histogram);
+            totalErrors += endpointStats.errors.sum();
+            totalThrottled += endpointStats.throttled.sum();
+            printRow(endpoint.key, histogram, endpointStats.errors.sum(), endpointStats.throttled.sum(), seconds);
+        }
+        System.out.println("-".repeat(105));
+        printRow("total", total, totalErrors, totalThrottled, seconds);
+        System.out.println("=".repeat(105));
 
-        } catch (Exception e) {
-            failureCount.incrementAndGet();
-            System.out.println("     ✗ Failed to update user " + userId + ": " + e.getMessage());
+        return new Summary(label, total.getTotalCount(), totalErrors, totalThrottled, total.getTotalCount() / seconds,
+                total.getValueAtPercentile(99) / 1000.0, total.getMaxValue() / 1000.0);
+    }
+
+    private static void printRow(String name, Histogram histogram, long errors, long throttled, double seconds) {
+        System.out.printf("%-14s %10d %8d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                name,
+                histogram.getTotalCount(),
+                errors,
+                throttled,
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    // ---------------------------------------------------------------- options
+
+    /**
+     * Virtual threads are used when running on Java 21+, otherwise a fixed platform pool.
+     */
+    private static ExecutorService newWorkerExecutor(int workers) {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(workers);
         }
     }
 
-    private void deleteUser(String userId) {
+    private static void awaitTermination(ExecutorService executor) {
+        executor.shutdown();
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(adminToken);
-            HttpEntity<Void> request = new HttpEntity<>(headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    USERS_URL + "/" + userId,
-                    HttpMethod.DELETE,
-                    request,
-                    String.class
-            );
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                successCount.incrementAndGet();
-                System.out.println("     ✓ Deleted user: " + userId);
-            }
+            executor.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        } catch (Exception e) {
-            failureCount.incrementAndGet();
-            System.out.println("     ✗ Failed to delete user " + userId + ": " + e.getMessage());
+    private static boolean supportsVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
         }
     }
 
-    private void printResults() {
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("TEST RESULTS SUMMARY");
-        System.out.println("=".repeat(60));
-        System.out.println("✓ Successful operations: " + successCount.get());
-        System.out.println("✗ Failed operations: " + failureCount.get());
-        System.out.println("Total operations: " + (successCount.get() + failureCount.get()));
-
-        double successRate = (double) successCount.get() / (successCount.get() + failureCount.get()) * 100;
-        System.out.println("Success rate: " + String.format("%.2f", successRate) + "%");
-
-        if (successRate >= 90) {
-            System.out.println("🎉 EXCELLENT! API is working very well.");
-        } else if (successRate >= 75) {
-            System.out.println("👍 GOOD! API is working with minor issues.");
-        } else if (successRate >= 50) {
-            System.out.println("⚠️  WARNING! API has significant issues.");
-        } else {
-            System.out.println("❌ CRITICAL! API has major problems.");
+    private static Endpoint[] parseMix(String mix) {
+        List<Endpoint> weighted = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            Endpoint endpoint = Endpoint.fromKey(parts[0].trim());
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("Endpoint mix is empty");
+        }
+        return weighted.toArray(new Endpoint[0]);
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.matches("\\d+")) {
+                // Backwards compatible with the old "ApiTestClient <numberOfUsers>" usage
+                options.put("users", arg);
+            } else if (arg.startsWith("--")) {
+                String[] parts = arg.substring(2).split("=", 2);
+                options.put(parts[0], parts.length > 1 ? parts[1] : "true");
+            }
         }
+        return options;
+    }
 
-        System.out.println("=".repeat(60));
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, String.valueOf(defaultValue)));
     }
-}
\ No newline at end of file
+}
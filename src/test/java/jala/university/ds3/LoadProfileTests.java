@@ -0,0 +1,40 @@
+package jala.university.ds3;
+
+import jala.university.ds3.infra.security.LoginAttemptLimiter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Boots the profiles embedded ApiTestClient runs use.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "load"})
+class LoadProfileTests {
+
+    @Autowired
+    private LoginAttemptLimiter loginAttemptLimiter;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Should start without login or route limits")
+    void testStartsWithoutLimits() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Duration.ZERO, loginAttemptLimiter.tryAcquire("loaduser0", "127.0.0.1"));
+        }
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+}
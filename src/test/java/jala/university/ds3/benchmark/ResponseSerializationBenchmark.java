@@ -0,0 +1,131 @@
+package jala.university.ds3.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserResponseDTO;
+import jala.university.ds3.domain.user.UserRole;
+import jala.university.ds3.dto.LoginResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON response bodies, the previous shape of each next to the current one:
+ * nested maps vs LoginResponse, the User entity vs UserResponseDTO, and the
+ * user listing written with a flush per element vs one SequenceWriter.
+ * The benchmark profile adds -prof gc; gc.alloc.rate.norm is the bytes allocated per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private static final int LISTING_SIZE = 100;
+    private static final String TOKEN = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9."
+            + "eyJpc3MiOiJhdXRoLWFwaSIsInN1YiI6ImJlbmNobWFyayIsImV4cCI6MTcwMDAwMDAwMH0."
+            + "c2lnbmF0dXJlLXNpZ25hdHVyZS1zaWduYXR1cmUtc2lnbmF0dXJl";
+
+    @Param({"false", "true"})
+    private boolean blackbird;
+
+    private final OutputStream sink = new DiscardingOutputStream();
+    private ObjectMapper objectMapper;
+    private ObjectWriter loginWriter;
+    private ObjectWriter userWriter;
+    private User user;
+    private List<UserResponseDTO> users;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        if (blackbird) {
+            objectMapper.registerModule(new BlackbirdModule());
+        }
+        loginWriter = objectMapper.writerFor(LoginResponse.class);
+        userWriter = objectMapper.writerFor(UserResponseDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        user = new User("Benchmark User", "benchmark", "$2a$10$encryptedpasswordencryptedpasswordencrypted", UserRole.USER);
+        users = new ArrayList<>(LISTING_SIZE);
+        for (int i = 0; i < LISTING_SIZE; i++) {
+            users.add(new UserResponseDTO(UUID.randomUUID().toString(), "User " + i, "user" + i, UserRole.USER, 0L));
+        }
+    }
+
+    @Benchmark
+    public void loginMap() throws IOException {
+        objectMapper.writeValue(sink, Map.of(
+                "token", TOKEN,
+                "type", "Bearer",
+                "user", Map.of(
+                        "login", user.getLogin(),
+                        "name", user.getName(),
+                        "role", user.getRole().name()
+                )
+        ));
+    }
+
+    @Benchmark
+    public void loginRecord() throws IOException {
+        loginWriter.writeValue(sink, LoginResponse.bearer(TOKEN, user));
+    }
+
+    @Benchmark
+    public void userEntity() throws IOException {
+        objectMapper.writeValue(sink, user);
+    }
+
+    @Benchmark
+    public void userRecord() throws IOException {
+        userWriter.writeValue(sink, UserResponseDTO.from(user));
+    }
+
+    @Benchmark
+    public void listingWriteObject() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(sink)) {
+            generator.writeStartArray();
+            for (UserResponseDTO dto : users) {
+                generator.writeObject(dto);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void listingSequenceWriter() throws IOException {
+        try (JsonGenerator generator = userWriter.createGenerator(sink);
+             SequenceWriter writer = userWriter.writeValuesAsArray(generator)) {
+            for (UserResponseDTO dto : users) {
+                writer.write(dto);
+            }
+        }
+    }
+
+    /**
+     * Accepts and drops everything, and stays usable after close().
+     */
+    private static final class DiscardingOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package jala.university.ds3.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import jala.university.ds3.infra.security.PrincipalCache;
+import jala.university.ds3.infra.security.SecurityFilter;
+import jala.university.ds3.infra.security.TokenRevocationRegistry;
+import jala.university.ds3.repositories.UserRepository;
+import jala.university.ds3.service.TokenService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SecurityFilter cost per request, with a stubbed UserRepository so only the
+ * token recovery, verification and principal resolution are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityFilterBenchmark {
+
+    @Param({"database", "stateless"})
+    private String authMode;
+
+    private SecurityFilter securityFilter;
+    private MockHttpServletRequest anonymousRequest;
+    private MockHttpServletRequest bearerRequest;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() throws ServletException {
+        TokenService tokenService = new TokenService("benchmark-secret", 10_000, new SimpleMeterRegistry());
+        User user = new User("Admin", "admin", "encrypted", UserRole.ADMIN);
+
+        securityFilter = new SecurityFilter();
+        ReflectionTestUtils.setField(securityFilter, "tokenService", tokenService);
+        ReflectionTestUtils.setField(securityFilter, "userRepository", stubRepository(user));
+        ReflectionTestUtils.setField(securityFilter, "principalCache",
+                new PrincipalCache(10_000, Duration.ofMinutes(1), new SimpleMeterRegistry(), false, Runnable::run));
+        ReflectionTestUtils.setField(securityFilter, "revocationRegistry",
+                new TokenRevocationRegistry(Duration.ofHours(6)));
+        ReflectionTestUtils.setField(securityFilter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(securityFilter, "observationRegistry", ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(securityFilter, "authMode", authMode);
+        securityFilter.afterPropertiesSet();
+
+        anonymousRequest = new MockHttpServletRequest("GET", "/users/currentUser");
+        bearerRequest = new MockHttpServletRequest("GET", "/users/currentUser");
+        bearerRequest.addHeader("Authorization", "Bearer " + tokenService.generateToken(user));
+    }
+
+    // The context is cleared inside the measured call, as the servlet stack does after every
+    // request: a Level.Invocation teardown would add timestamping overhead to each call
+    @Benchmark
+    public void withoutToken() throws Exception {
+        try {
+            securityFilter.doFilter(anonymousRequest, new MockHttpServletResponse(), chain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public void withBearerToken() throws Exception {
+        try {
+            securityFilter.doFilter(bearerRequest, new MockHttpServletResponse(), chain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static UserRepository stubRepository(User user) {
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByLogin" -> Optional.of(user);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubUserRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,67 @@
+package jala.university.ds3.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import jala.university.ds3.service.TokenService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token generation, and validate throughput before (algorithm and verifier rebuilt
+ * per call) and after (shared verifier, plus the verified-token cache) the TokenService rework.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret";
+
+    private TokenService tokenService;
+    private JWTVerifier sharedVerifier;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenService = new TokenService(SECRET, 10_000, new SimpleMeterRegistry());
+        sharedVerifier = JWT.require(Algorithm.HMAC256(SECRET))
+                .withIssuer("ds3-api")
+                .build();
+        user = new User("Admin", "admin", "encrypted", UserRole.ADMIN);
+        token = tokenService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenService.generateToken(user);
+    }
+
+    @Benchmark
+    public String validateRebuildingVerifier() {
+        Algorithm algorithm = Algorithm.HMAC256(SECRET);
+        return JWT.require(algorithm)
+                .withIssuer("ds3-api")
+                .build()
+                .verify(token)
+                .getSubject();
+    }
+
+    @Benchmark
+    public String validateSharedVerifier() {
+        return sharedVerifier.verify(token).getSubject();
+    }
+
+    @Benchmark
+    public String validateCached() {
+        return tokenService.validateToken(token);
+    }
+}
@@ -0,0 +1,37 @@
+package jala.university.ds3.benchmark;
+
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of User.getAuthorities(), which is called for every authenticated request.
+ * Run with -prof gc to see the allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserAuthoritiesBenchmark {
+
+    @Param({"ADMIN", "USER"})
+    private UserRole role;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User("Benchmark", "benchmark", "encrypted", role);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return user.getAuthorities();
+    }
+}
@@ -0,0 +1,103 @@
+package jala.university.ds3.benchmark;
+
+import jala.university.ds3.domain.user.UuidBinaryConverter;
+import jala.university.ds3.utils.UuidV7;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput of the old users key layout (random UUIDv4 in VARCHAR(36))
+ * against the new one (UUIDv7 in BINARY(16)), 100 rows per JDBC batch.
+ * Defaults to in-memory H2; pass -p jdbcUrl=jdbc:mysql://... -p user=... -p password=...
+ * to measure InnoDB, where page splits from random keys show up much more clearly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserIdInsertBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"varchar-v4", "binary-v7"})
+    private String idLayout;
+
+    @Param({"jdbc:h2:mem:idbench;MODE=MySQL;DB_CLOSE_DELAY=-1"})
+    private String jdbcUrl;
+
+    @Param({"sa"})
+    private String user;
+
+    @Param({""})
+    private String password;
+
+    private final UuidBinaryConverter converter = new UuidBinaryConverter();
+    private Connection connection;
+    private PreparedStatement insert;
+    private boolean binary;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        binary = "binary-v7".equals(idLayout);
+        connection = DriverManager.getConnection(jdbcUrl, user, password);
+        connection.setAutoCommit(false);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS users_id_bench");
+            statement.execute("CREATE TABLE users_id_bench ("
+                    + "id " + (binary ? "BINARY(16)" : "VARCHAR(36)") + " NOT NULL PRIMARY KEY, "
+                    + "name VARCHAR(100) NOT NULL, "
+                    + "login VARCHAR(100) NOT NULL, "
+                    + "password VARCHAR(255) NOT NULL, "
+                    + "role VARCHAR(20) NOT NULL)");
+        }
+        connection.commit();
+
+        insert = connection.prepareStatement(
+                "INSERT INTO users_id_bench (id, name, login, password, role) VALUES (?, ?, ?, ?, ?)");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS users_id_bench");
+        }
+        connection.commit();
+        insert.close();
+        connection.close();
+    }
+
+    /**
+     * Inserts and commits one batch; scores are reported in rows per second.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long n = sequence++;
+            if (binary) {
+                insert.setBytes(1, converter.convertToDatabaseColumn(UuidV7.randomUUID().toString()));
+            } else {
+                insert.setString(1, UUID.randomUUID().toString());
+            }
+            insert.setString(2, "User " + n);
+            insert.setString(3, "user" + n);
+            insert.setString(4, "$2a$10$abcdefghijklmnopqrstuv");
+            insert.setString(5, "USER");
+            insert.addBatch();
+        }
+        int[] counts = insert.executeBatch();
+        connection.commit();
+        return counts;
+    }
+}
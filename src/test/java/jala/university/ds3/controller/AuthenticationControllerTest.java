@@ -0,0 +1,75 @@
+package jala.university.ds3.controller;
+
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import jala.university.ds3.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class AuthenticationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // Cost 4 is below any calibrated strength, so a successful login rehashes it
+        String login = "auth_" + System.nanoTime() % 1_000_000;
+        user = userRepository.save(new User("Auth User", login, new BCryptPasswordEncoder(4).encode("secret1"),
+                UserRole.USER));
+    }
+
+    @Test
+    @DisplayName("Should issue a token and save the rehashed password")
+    void testLoginRehashes() throws Exception {
+        login(user.getLogin(), "secret1")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty());
+
+        String stored = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertNotEquals(user.getPassword(), stored);
+        assertFalse(stored.startsWith("$2a$04$"));
+        assertTrue(new BCryptPasswordEncoder().matches("secret1", stored));
+    }
+
+    @Test
+    @DisplayName("Should answer 401 for a wrong password or an unknown login")
+    void testRejectsInvalidCredentials() throws Exception {
+        login(user.getLogin(), "wrong-secret").andExpect(status().isUnauthorized());
+        login("missing_" + user.getLogin(), "secret1").andExpect(status().isUnauthorized());
+
+        assertEquals(user.getPassword(), userRepository.findById(user.getId()).orElseThrow().getPassword());
+    }
+
+    private ResultActions login(String login, String password) throws Exception {
+        MvcResult result = mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"login\":\"" + login + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
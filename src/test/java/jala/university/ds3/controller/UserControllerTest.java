@@ -0,0 +1,247 @@
+package jala.university.ds3.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import jala.university.ds3.infra.sync.UsersChangedEvent;
+import jala.university.ds3.repositories.UserRepository;
+import jala.university.ds3.service.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Paging through every user takes more requests than the per-user burst of GET /users
+@SpringBootTest(properties = "api.rate-limit.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User user;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        user = save("etag_", UserRole.USER);
+        token = tokenService.generateToken(user);
+    }
+
+    @Test
+    @DisplayName("Should apply If-Match updates only to the version they were read from")
+    void testConditionalUpdate() throws Exception {
+        String read = eTag(getById(token));
+
+        String updated = mockMvc.perform(update("Renamed once").header(HttpHeaders.IF_MATCH, read))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Renamed once"))
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(read, updated);
+
+        mockMvc.perform(update("Lost update").header(HttpHeaders.IF_MATCH, read))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(getById(token))
+                .andExpect(header().string(HttpHeaders.ETAG, updated))
+                .andExpect(jsonPath("$.name").value("Renamed once"));
+    }
+
+    @Test
+    @DisplayName("Should accept unconditional and wildcard updates")
+    void testUnconditionalUpdate() throws Exception {
+        mockMvc.perform(update("No precondition"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(update("Any version").header(HttpHeaders.IF_MATCH, "*"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should answer If-None-Match with 304 until the user changes, legacy writes included")
+    void testConditionalGet() throws Exception {
+        String read = eTag(getById(token));
+
+        mockMvc.perform(getById(token).header(HttpHeaders.IF_NONE_MATCH, read))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/users/currentUser")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, read))
+                .andExpect(status().isNotModified());
+
+        // A legacy write leaves the version alone; the change detector then evicts the caches
+        jdbcTemplate.update("UPDATE users SET name = 'Legacy name' WHERE id = ?", user.getId());
+        eventPublisher.publishEvent(new UsersChangedEvent(Set.of(user.getId()), Set.of(user.getLogin()),
+                Map.of(user.getLogin(), "USER")));
+
+        mockMvc.perform(getById(token).header(HttpHeaders.IF_NONE_MATCH, read))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Legacy name"));
+    }
+
+    @Test
+    @DisplayName("Should revalidate the full listing from the row count and last update")
+    void testConditionalListing() throws Exception {
+        String admin = tokenService.generateToken(save("etag_admin_", UserRole.ADMIN));
+
+        var response = mockMvc.perform(get("/users").header(HttpHeaders.AUTHORIZATION, "Bearer " + admin))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals(1, response.getHeaders(HttpHeaders.ETAG).size());
+        String listing = response.getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/users")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + admin)
+                        .header(HttpHeaders.IF_NONE_MATCH, listing))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/users")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + admin)
+                        .header(HttpHeaders.IF_NONE_MATCH, listing)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk());
+
+        save("etag_new_", UserRole.USER);
+        mockMvc.perform(get("/users")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + admin)
+                        .header(HttpHeaders.IF_NONE_MATCH, listing))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should stream every user through the async dispatch, as JSON or NDJSON")
+    void testStreamsListing() throws Exception {
+        String admin = tokenService.generateToken(save("stream_admin_", UserRole.ADMIN));
+        long users = userRepository.count();
+
+        MvcResult json = mockMvc.perform(get("/users").header(HttpHeaders.AUTHORIZATION, "Bearer " + admin))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(json))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(users))
+                .andExpect(jsonPath("$[*].id", hasItem(user.getId())))
+                .andExpect(jsonPath("$[*].password").isEmpty());
+
+        MvcResult ndjson = mockMvc.perform(get("/users")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + admin)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<String> lines = body.lines().toList();
+        assertEquals(users, lines.size());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"login\":\"" + user.getLogin() + "\"")));
+    }
+
+    @Test
+    @DisplayName("Should page through users in login order with the last login as cursor")
+    void testPagesByLogin() throws Exception {
+        String admin = tokenService.generateToken(save("page_admin_", UserRole.ADMIN));
+        List<String> logins = userRepository.findAll().stream().map(User::getLogin).sorted().toList();
+
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder page = get("/users").param("sort", "login").param("limit", "2")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + admin);
+            if (cursor != null) {
+                page.param("after", cursor);
+            }
+            JsonNode body = objectMapper.readTree(mockMvc.perform(page)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            body.get("items").forEach(item -> paged.add(item.get("login").asText()));
+            cursor = body.get("nextCursor").isNull() ? null : body.get("nextCursor").asText();
+        } while (cursor != null);
+
+        assertEquals(logins, paged);
+        mockMvc.perform(get("/users").param("sort", "name").header(HttpHeaders.AUTHORIZATION, "Bearer " + admin))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should find users whose legacy id is not a UUID")
+    void testLegacyStringId() throws Exception {
+        String admin = tokenService.generateToken(save("legacy_admin_", UserRole.ADMIN));
+        String id = "legacy-" + System.nanoTime();
+        String login = "legacy_" + System.nanoTime() % 1_000_000;
+        jdbcTemplate.update("INSERT INTO users (id, name, login, password, role) VALUES (?, 'Legacy User', ?, 'hash', 'USER')",
+                id, login);
+
+        mockMvc.perform(get("/users/id").param("id", id).header(HttpHeaders.AUTHORIZATION, "Bearer " + admin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.login").value(login));
+        mockMvc.perform(get("/users/id").param("id", "missing-id").header(HttpHeaders.AUTHORIZATION, "Bearer " + admin))
+                .andExpect(status().isNotFound());
+    }
+
+    private User save(String prefix, UserRole role) {
+        String login = prefix + System.nanoTime() % 1_000_000;
+        return userRepository.save(new User("ETag User", login, "hash", role));
+    }
+
+    private String eTag(MockHttpServletRequestBuilder request) throws Exception {
+        String eTag = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        return eTag;
+    }
+
+    private MockHttpServletRequestBuilder getById(String bearer) {
+        return get("/users/id").param("id", user.getId())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + bearer);
+    }
+
+    private MockHttpServletRequestBuilder update(String name) {
+        return put("/users/{id}", user.getId())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"" + name + "\"}");
+    }
+}
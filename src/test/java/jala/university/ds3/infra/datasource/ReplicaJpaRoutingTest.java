@@ -0,0 +1,144 @@
+package jala.university.ds3.infra.datasource;
+
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import jala.university.ds3.repositories.UserRepository;
+import jala.university.ds3.service.AuthorizationService;
+import jala.university.ds3.service.TokenService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Two H2 databases stand in for the primary and the replica; the replica copy of a user
+ * differs from the primary row, so every assertion shows which database was used.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:jpa_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "api.datasource.replica.url=" + ReplicaJpaRoutingTest.REPLICA_URL,
+        "api.datasource.replica.username=sa",
+        "api.datasource.replica.password=",
+        "api.datasource.replica.driver-class-name=org.h2.Driver",
+        "api.datasource.replica.lag-query=SELECT 0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ReplicaJpaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:jpa_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final DataSource replica = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    private User user;
+    private String token;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(replica)
+                .locations("classpath:db/migration", "classpath:jala/university/ds3/infra/migration")
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        String login = "replica_" + UUID.randomUUID().toString().substring(0, 8);
+        user = userRepository.save(new User("Primary name", login, "hash", UserRole.USER));
+        // The replica has the row, but not yet any change made after this
+        new JdbcTemplate(replica).update(
+                "INSERT INTO users (id, name, login, password, role, version) VALUES (?, 'Replica name', ?, 'hash', 'USER', 0)",
+                user.getId(), user.getLogin());
+        token = tokenService.generateToken(user);
+        replicaLagMonitor.check();
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+    }
+
+    @Test
+    @DisplayName("Should read from the replica and read-modify-write on the primary")
+    void testUpdateReadsAndWritesPrimary() throws Exception {
+        mockMvc.perform(get("/users/id").param("id", user.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Replica name"));
+
+        String eTag = mockMvc.perform(update("Renamed once"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // The replica still has version 0; the If-Match is checked against the primary's version 1
+        mockMvc.perform(update("Renamed twice").header(HttpHeaders.IF_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Renamed twice"));
+
+        assertEquals(Map.of("name", "Renamed twice", "version", 2L), row(primary));
+        assertEquals(Map.of("name", "Replica name", "version", 0L), row(replica));
+    }
+
+    @Test
+    @DisplayName("Should save password rehashes on the primary")
+    void testRehashWritesPrimary() {
+        authorizationService.updatePassword(user, "rehash");
+
+        assertEquals("rehash", password(primary));
+        assertEquals("hash", password(replica));
+    }
+
+    private MockHttpServletRequestBuilder update(String name) {
+        return put("/users/{id}", user.getId())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"" + name + "\"}");
+    }
+
+    private Map<String, Object> row(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT name, version FROM users WHERE id = ?",
+                (rs, rowNum) -> Map.of("name", rs.getString("name"), "version", rs.getLong("version")), user.getId());
+    }
+
+    private String password(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT password FROM users WHERE id = ?",
+                String.class, user.getId());
+    }
+}
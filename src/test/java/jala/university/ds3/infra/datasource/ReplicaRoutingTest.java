@@ -0,0 +1,86 @@
+package jala.university.ds3.infra.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two H2 databases stand in for the primary and the replica; each knows its own name.
+ */
+class ReplicaRoutingTest {
+
+    private final DataSource primary = database("routing_primary");
+    private final DataSource replica = database("routing_replica");
+    private ReplicaLagMonitor monitor;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = 0");
+        monitor = new ReplicaLagMonitor(replica, Duration.ofSeconds(5), Duration.ofSeconds(1),
+                "SELECT seconds FROM replica_lag", new SimpleMeterRegistry());
+
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(new ReplicaFallbackDataSource(replica, primary, monitor));
+        jdbcTemplate = new JdbcTemplate(routing);
+
+        var transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to the replica and the rest to the primary")
+    void testRouting() {
+        monitor.check();
+
+        assertTrue(monitor.isReplicaUsable());
+        assertEquals("routing_replica", serverName(readOnly));
+        assertEquals("routing_primary", serverName(readWrite));
+    }
+
+    @Test
+    @DisplayName("Should keep reads on the primary while the replica lags or before the first check")
+    void testLagFallback() {
+        assertEquals("routing_primary", serverName(readOnly));
+
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = 30");
+        monitor.check();
+        assertFalse(monitor.isReplicaUsable());
+        assertEquals("routing_primary", serverName(readOnly));
+
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = 1");
+        monitor.check();
+        assertEquals("routing_replica", serverName(readOnly));
+    }
+
+    private String serverName(TransactionTemplate template) {
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM server", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS server (name VARCHAR(32))");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS replica_lag (seconds INT)");
+        if (jdbc.queryForObject("SELECT COUNT(*) FROM server", Integer.class) == 0) {
+            jdbc.update("INSERT INTO server VALUES (?)", name);
+            jdbc.update("INSERT INTO replica_lag VALUES (0)");
+        }
+        return dataSource;
+    }
+}
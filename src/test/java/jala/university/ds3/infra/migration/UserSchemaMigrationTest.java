@@ -0,0 +1,165 @@
+package jala.university.ds3.infra.migration;
+
+import jala.university.ds3.domain.user.UserIdLayout;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSchemaMigrationTest {
+
+    private String url;
+
+    @BeforeEach
+    void setUp() {
+        url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    private void migrate() {
+        migrate(false);
+    }
+
+    private void migrate(boolean binaryId) {
+        migrate(binaryId, "latest");
+    }
+
+    private void migrate(boolean binaryId, String target) {
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .locations("classpath:db/migration", "classpath:jala/university/ds3/infra/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .placeholders(Map.of(UserIdLayout.FLYWAY_PLACEHOLDER, Boolean.toString(binaryId)))
+                .target(target)
+                .load()
+                .migrate();
+    }
+
+    private void createLegacyTable(String id) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id VARCHAR(36) NOT NULL, name VARCHAR(200) NOT NULL, "
+                    + "login VARCHAR(20) NOT NULL, password VARCHAR(100) NOT NULL, role VARCHAR(20) NOT NULL, "
+                    + "PRIMARY KEY (id), UNIQUE INDEX id_UNIQUE (id ASC))");
+            statement.execute("INSERT INTO users VALUES ('" + id + "', 'Admin', 'admin', 'hash', 'ADMIN')");
+        }
+    }
+
+    private Object storedId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id FROM users WHERE login = 'admin'")) {
+            assertTrue(rs.next());
+            return rs.getObject(1);
+        }
+    }
+
+    private String explain(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+            rs.next();
+            return rs.getString(1).toLowerCase();
+        }
+    }
+
+    @Test
+    @DisplayName("Login lookup should use the login_UNIQUE index on a fresh database")
+    void testLoginLookupUsesIndex() throws SQLException {
+        migrate();
+
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            String plan = explain(connection, "SELECT * FROM users WHERE login = 'admin'");
+
+            assertTrue(plan.contains("login_unique"), plan);
+        }
+    }
+
+    @Test
+    @DisplayName("Should drop the redundant id_UNIQUE index")
+    void testDuplicateIdIndexDropped() throws SQLException {
+        migrate();
+
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT constraint_name FROM information_schema.table_constraints "
+                     + "WHERE table_name = 'users' AND constraint_type = 'UNIQUE'")) {
+            while (rs.next()) {
+                assertNotEquals("id_unique", rs.getString(1).toLowerCase());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should baseline an existing legacy table, add the login index and keep VARCHAR ids")
+    void testExistingDatabaseIsBaselined() throws SQLException {
+        String legacyId = UUID.randomUUID().toString();
+        createLegacyTable(legacyId);
+
+        migrate();
+
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            assertTrue(explain(connection, "SELECT * FROM users WHERE login = 'admin'").contains("login_unique"));
+            assertEquals(legacyId, storedId(connection));
+        }
+    }
+
+    @Test
+    @DisplayName("Should convert ids to BINARY(16) only when the binary layout is enabled")
+    void testBinaryLayoutIsOptIn() throws SQLException {
+        String legacyId = UUID.randomUUID().toString();
+        createLegacyTable(legacyId);
+
+        migrate(true);
+
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            Object stored = storedId(connection);
+            assertInstanceOf(byte[].class, stored);
+            assertEquals(legacyId, UserIdLayout.fromDatabase(stored));
+            assertEquals(List.of("id"), primaryKey(connection));
+        }
+    }
+
+    @Test
+    @DisplayName("Should finish the binary conversion when a previous run stopped halfway")
+    void testBinaryConversionIsRestartable() throws SQLException {
+        String legacyId = UUID.randomUUID().toString();
+        createLegacyTable(legacyId);
+        migrate(true, "2");
+        // State left by a V3 run that failed after adding id_bin and dropping the old key;
+        // MySQL records the failure and the rerun follows flyway repair
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE users ADD COLUMN id_bin BINARY(16)");
+            statement.execute("ALTER TABLE users DROP CONSTRAINT id_UNIQUE");
+            statement.execute("ALTER TABLE users DROP PRIMARY KEY");
+        }
+
+        migrate(true);
+
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            assertEquals(legacyId, UserIdLayout.fromDatabase(storedId(connection)));
+            assertEquals(List.of("id"), primaryKey(connection));
+        }
+    }
+
+    private static List<String> primaryKey(Connection connection) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (ResultSet rs = connection.getMetaData().getPrimaryKeys(null, null, "users")) {
+            while (rs.next()) {
+                columns.add(rs.getString("COLUMN_NAME").toLowerCase());
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,47 @@
+package jala.university.ds3.infra.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBCryptPasswordEncoderTest {
+
+    @Test
+    @DisplayName("Should keep the calibrated strength within the configured bounds")
+    void testCalibrationBounds() {
+        assertEquals(4, AdaptiveBCryptPasswordEncoder.calibrate(Duration.ZERO, 4, 6));
+        assertEquals(6, AdaptiveBCryptPasswordEncoder.calibrate(Duration.ofMinutes(1), 4, 6));
+    }
+
+    @Test
+    @DisplayName("Should ask for a rehash only when the stored cost is lower")
+    void testUpgradeEncoding() {
+        var encoder = new AdaptiveBCryptPasswordEncoder(5, Duration.ZERO, 4, 6, new SimpleMeterRegistry());
+
+        assertFalse(encoder.upgradeEncoding(encoder.encode("mypassword123")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("mypassword123")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("mypassword123")));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    @DisplayName("Should verify hashes of any cost and record timings")
+    void testMatchesAndMetrics() {
+        var registry = new SimpleMeterRegistry();
+        var encoder = new AdaptiveBCryptPasswordEncoder(5, Duration.ZERO, 4, 6, registry);
+
+        assertTrue(encoder.matches("mypassword123", new BCryptPasswordEncoder(4).encode("mypassword123")));
+        assertFalse(encoder.matches("wrong", encoder.encode("mypassword123")));
+
+        assertEquals(1, registry.get("security.password.hash")
+                .tags("operation", "matches", "strength", "4").timer().count());
+        assertEquals(1, registry.get("security.password.hash")
+                .tags("operation", "encode", "strength", "5").timer().count());
+        assertEquals(5.0, registry.get("security.password.hash.strength").gauge().value());
+    }
+}
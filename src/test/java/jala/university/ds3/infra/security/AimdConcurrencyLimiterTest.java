@@ -0,0 +1,102 @@
+package jala.university.ds3.infra.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdConcurrencyLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private AimdConcurrencyLimiter limiter(int initial, int min, int max) {
+        return new AimdConcurrencyLimiter(initial, min, max, 0.5, Duration.ofSeconds(1), clock::get);
+    }
+
+    @Test
+    @DisplayName("Should reject above the limit and free the slot on release")
+    void testLimitsInFlight() {
+        var limiter = limiter(2, 1, 10);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(clock.get(), false);
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should grow additively while used and back off on slow or failed requests")
+    void testAdditiveIncreaseMultiplicativeDecrease() {
+        var limiter = limiter(4, 2, 6);
+
+        // Two in flight is half of 4: the limit grows, but stops at 5 where it is no longer used
+        for (int i = 0; i < 3; i++) {
+            run(limiter, 2, FAST, false);
+        }
+        assertEquals(5, limiter.getLimit());
+
+        for (int i = 0; i < 3; i++) {
+            run(limiter, 3, FAST, false);
+        }
+        assertEquals(6, limiter.getLimit());
+
+        run(limiter, 1, SLOW, false);
+        assertEquals(3, limiter.getLimit());
+
+        run(limiter, 1, FAST, true);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should back off once for requests that started before the last decrease")
+    void testBacksOffOncePerRoundTrip() {
+        var limiter = limiter(8, 1, 10);
+
+        // Four requests admitted together all turn out slow: one overload, one decrease
+        run(limiter, 4, SLOW, false);
+        assertEquals(4, limiter.getLimit());
+
+        // A request admitted after the decrease is still slow: the backend has not recovered
+        run(limiter, 1, SLOW, false);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should only count failures of requests released ignoring latency")
+    void testIgnoresLatency() {
+        var limiter = limiter(4, 1, 10);
+
+        limiter.tryAcquire();
+        long start = clock.get();
+        clock.addAndGet(SLOW);
+        limiter.releaseIgnoringLatency(start, false);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.releaseIgnoringLatency(clock.get(), true);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    /**
+     * Starts count requests at once, lets latency pass and releases them all.
+     */
+    private void run(AimdConcurrencyLimiter limiter, int count, long latency, boolean dropped) {
+        long start = clock.get();
+        for (int i = 0; i < count; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        clock.addAndGet(latency);
+        for (int i = 0; i < count; i++) {
+            limiter.release(start, dropped);
+        }
+    }
+}
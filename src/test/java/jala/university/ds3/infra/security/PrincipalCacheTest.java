@@ -0,0 +1,80 @@
+package jala.university.ds3.infra.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private PrincipalCache principalCache;
+    private AtomicInteger loads;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        principalCache = new PrincipalCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry(), false, Runnable::run);
+        loads = new AtomicInteger();
+        user = new User("Admin", "admin", "encrypted", UserRole.ADMIN);
+    }
+
+    private Optional<User> load(String login) {
+        loads.incrementAndGet();
+        return "admin".equals(login) ? Optional.of(user) : Optional.empty();
+    }
+
+    @Test
+    @DisplayName("Should hit the loader only once for repeated lookups")
+    void testCachesPrincipal() {
+        assertSame(user, principalCache.get("admin", this::load).orElseThrow());
+        assertSame(user, principalCache.get("admin", this::load).orElseThrow());
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should reload the principal after eviction")
+    void testEvict() {
+        principalCache.get("admin", this::load);
+        principalCache.evict("admin");
+        principalCache.get("admin", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should not cache missing users")
+    void testMissingUserNotCached() {
+        assertTrue(principalCache.get("ghost", this::load).isEmpty());
+        assertTrue(principalCache.get("ghost", this::load).isEmpty());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should load on the executor when virtual threads are enabled")
+    void testLoadsOnExecutorWithVirtualThreads() {
+        AtomicInteger executed = new AtomicInteger();
+        PrincipalCache asyncCache = new PrincipalCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry(), true,
+                task -> {
+                    executed.incrementAndGet();
+                    task.run();
+                });
+
+        assertSame(user, asyncCache.get("admin", this::load).orElseThrow());
+        assertSame(user, asyncCache.get("admin", this::load).orElseThrow());
+        assertTrue(asyncCache.get("ghost", this::load).isEmpty());
+
+        assertEquals(2, loads.get());
+        assertTrue(executed.get() >= 2);
+        assertEquals(1, asyncCache.cachedPrincipals().size());
+    }
+}
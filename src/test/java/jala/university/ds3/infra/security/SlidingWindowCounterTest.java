@@ -0,0 +1,71 @@
+package jala.university.ds3.infra.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowCounterTest {
+
+    private static final long START = 1_000_000L * 60_000;
+
+    private final AtomicLong now = new AtomicLong(START);
+    private final SlidingWindowCounter counter =
+            new SlidingWindowCounter(3, Duration.ofMinutes(1), 100, now::get);
+
+    @Test
+    @DisplayName("Should allow up to the limit per key within one window")
+    void testLimitPerKey() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, counter.tryAcquire("ana"));
+        }
+
+        long wait = counter.tryAcquire("ana");
+        assertTrue(wait > 0 && wait <= 60_001, "wait was " + wait);
+        assertEquals(0, counter.tryAcquire("bob"));
+    }
+
+    @Test
+    @DisplayName("Should weight the previous window by the time left in the current one")
+    void testSlidingWindow() {
+        for (int i = 0; i < 3; i++) {
+            counter.tryAcquire("ana");
+        }
+
+        // 15s into the next window the previous 3 still weigh 2.25: room for one
+        now.set(START + 75_000);
+        assertEquals(0, counter.tryAcquire("ana"));
+        long wait = counter.tryAcquire("ana");
+        assertTrue(wait > 0 && wait <= 5_001, "wait was " + wait);
+
+        // The wait reported is enough for exactly one more attempt
+        now.addAndGet(wait);
+        assertEquals(0, counter.tryAcquire("ana"));
+        assertTrue(counter.tryAcquire("ana") > 0);
+
+        // Two windows later nothing is left
+        now.set(START + 180_000);
+        assertEquals(0, counter.tryAcquire("ana"));
+    }
+
+    @Test
+    @DisplayName("Should count logins case-insensitively and check the address first")
+    void testLoginLimiter() {
+        var limiter = new SlidingWindowLoginLimiter(
+                new SlidingWindowCounter(2, Duration.ofMinutes(1), 100, now::get),
+                new SlidingWindowCounter(3, Duration.ofMinutes(1), 100, now::get),
+                new SimpleMeterRegistry());
+
+        assertEquals(Duration.ZERO, limiter.tryAcquire("Admin", "10.0.0.1"));
+        assertEquals(Duration.ZERO, limiter.tryAcquire("admin ", "10.0.0.2"));
+        assertFalse(limiter.tryAcquire("ADMIN", "10.0.0.3").isZero());
+
+        assertEquals(Duration.ZERO, limiter.tryAcquire("bob", "10.0.0.1"));
+        assertEquals(Duration.ZERO, limiter.tryAcquire("carol", "10.0.0.1"));
+        assertFalse(limiter.tryAcquire("dave", "10.0.0.1").isZero());
+    }
+}
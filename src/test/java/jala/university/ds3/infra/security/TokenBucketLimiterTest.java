@@ -0,0 +1,42 @@
+package jala.university.ds3.infra.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(42 * SECOND);
+    private final TokenBucketLimiter limiter = new TokenBucketLimiter(2, 3, 100, now::get);
+
+    @Test
+    @DisplayName("Should allow a full burst, then one request per interval")
+    void testBurstThenRate() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("ana"));
+        }
+        assertEquals(SECOND / 2, limiter.tryAcquire("ana"));
+        assertEquals(0, limiter.tryAcquire("bob"));
+
+        now.addAndGet(SECOND / 2);
+        assertEquals(0, limiter.tryAcquire("ana"));
+        assertTrue(limiter.tryAcquire("ana") > 0);
+    }
+
+    @Test
+    @DisplayName("Should refill to the burst size, not beyond, after being idle")
+    void testRefillCapped() {
+        limiter.tryAcquire("ana");
+        now.addAndGet(60 * SECOND);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("ana"));
+        }
+        assertTrue(limiter.tryAcquire("ana") > 0);
+    }
+}
@@ -0,0 +1,61 @@
+package jala.university.ds3.infra.security;
+
+import jala.university.ds3.infra.sync.UsersChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationRegistryTest {
+
+    private final TokenRevocationRegistry registry = new TokenRevocationRegistry(Duration.ofHours(6));
+
+    @Test
+    @DisplayName("Should accept tokens for logins without revocations")
+    void testNotRevoked() {
+        assertFalse(registry.isRevoked("admin", Instant.now()));
+        assertFalse(registry.isRevoked("admin", null));
+    }
+
+    @Test
+    @DisplayName("Should reject tokens issued before the revocation")
+    void testRevokedBefore() {
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        registry.revoke("admin");
+
+        assertTrue(registry.isRevoked("admin", issuedAt));
+        assertTrue(registry.isRevoked("admin", null));
+        assertFalse(registry.isRevoked("other", issuedAt));
+    }
+
+    @Test
+    @DisplayName("Should reject tokens of deleted users and tokens with a role changed since")
+    void testUsersChanged() {
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        registry.onUsersChanged(new UsersChangedEvent(Set.of("1", "2"), Set.of("demoted", "deleted"),
+                Map.of("demoted", "USER")));
+
+        assertTrue(registry.isRevoked("demoted", issuedAt, "ADMIN"));
+        assertFalse(registry.isRevoked("demoted", issuedAt, "USER"));
+        assertTrue(registry.isRevoked("deleted", issuedAt, "USER"));
+        assertFalse(registry.isRevoked("other", issuedAt, "ADMIN"));
+    }
+
+    @Test
+    @DisplayName("Should reject a token issued earlier in the revocation's second and accept later ones")
+    void testMillisecondPrecision() {
+        Instant issuedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        registry.revoke("admin");
+
+        assertTrue(registry.isRevoked("admin", issuedAt));
+        // A token without the millisecond claim falls back to the start of its second
+        assertTrue(registry.isRevoked("admin", issuedAt.truncatedTo(ChronoUnit.SECONDS)));
+        assertFalse(registry.isRevoked("admin", Instant.now().plusMillis(1)));
+    }
+}
@@ -0,0 +1,91 @@
+package jala.university.ds3.infra.sync;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import jala.university.ds3.domain.user.UuidBinaryConverter;
+import jala.university.ds3.repositories.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Users written through the repository reach the file sink via the outbox and the poller.
+ */
+@SpringBootTest(properties = "app.legacy.sync.poll-interval=100ms")
+@ActiveProfiles("h2")
+class LegacySyncFlowTest {
+
+    @TempDir
+    static Path syncDir;
+
+    @DynamicPropertySource
+    static void syncFile(DynamicPropertyRegistry registry) {
+        registry.add("app.legacy.sync.file", () -> syncDir.resolve("users.ndjson").toString());
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Should sync inserts, updates and deletes of a user to the legacy file")
+    void testSyncsUserLifecycle() throws Exception {
+        User user = userRepository.save(new User("Sync Ana", "sync_ana", "hash", UserRole.USER));
+        user.setName("Sync Ana B");
+        user = userRepository.save(user);
+        userRepository.delete(user);
+
+        List<JsonNode> events = awaitEvents(user.getId(), "DELETE");
+
+        JsonNode last = events.get(events.size() - 1);
+        assertEquals("sync_ana", last.at("/user/login").asText());
+        assertFalse(last.at("/user").has("password"));
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i).get("sequence").asLong() > events.get(i - 1).get("sequence").asLong());
+        }
+        // Other test contexts share the in-memory database, so only this user's rows are checked
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_outbox WHERE user_id = ?",
+                Integer.class, new UuidBinaryConverter().convertToDatabaseColumn(user.getId())));
+    }
+
+    private List<JsonNode> awaitEvents(String userId, String untilType) throws Exception {
+        Path file = syncDir.resolve("users.ndjson");
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            List<JsonNode> events = new ArrayList<>();
+            if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file)) {
+                    JsonNode event = objectMapper.readTree(line);
+                    if (userId.equals(event.at("/user/id").asText())) {
+                        events.add(event);
+                    }
+                }
+            }
+            if (!events.isEmpty() && untilType.equals(events.get(events.size() - 1).get("type").asText())) {
+                return events;
+            }
+            Thread.sleep(50);
+        }
+        return fail("No " + untilType + " event for " + userId + " within 10s");
+    }
+}
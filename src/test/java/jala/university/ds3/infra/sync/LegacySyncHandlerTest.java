@@ -0,0 +1,129 @@
+package jala.university.ds3.infra.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jala.university.ds3.domain.user.UuidBinaryConverter;
+import jala.university.ds3.utils.UuidV7;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegacySyncHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UuidBinaryConverter idConverter = new UuidBinaryConverter();
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:legacy_sync;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS user_outbox");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V4__user_outbox.sql")).execute(dataSource);
+    }
+
+    @Test
+    @DisplayName("Should deliver only the newest change per user and clear the delivered rows")
+    void testDeliversLatestPerUser() {
+        String ana = UuidV7.randomUUID().toString();
+        String bob = UuidV7.randomUUID().toString();
+        insert(ana, "UPSERT", "Ana");
+        insert(bob, "UPSERT", "Bob");
+        insert(ana, "UPSERT", "Ana B");
+        insert(ana, "DELETE", "Ana B");
+
+        List<UserChangeEvent> received = new ArrayList<>();
+        var registry = new SimpleMeterRegistry();
+        handler(received::add, 10, registry).deliver(due());
+
+        assertEquals(2, received.size());
+        assertEquals(ana, received.get(0).user().id());
+        assertEquals(UserChangeEvent.Type.DELETE, received.get(0).type());
+        assertEquals(4, received.get(0).sequence());
+        assertEquals("Bob", received.get(1).user().name());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_outbox", Integer.class));
+        assertEquals(2.0, registry.get("legacy.sync.events").tag("result", "delivered").counter().count());
+        assertEquals(2.0, registry.get("legacy.sync.events").tag("result", "superseded").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should back off after a failed delivery and park the row after max attempts")
+    void testRetriesThenFails() {
+        String ana = UuidV7.randomUUID().toString();
+        insert(ana, "UPSERT", "Ana");
+        LegacySyncHandler handler = handler(event -> {
+            throw new IllegalStateException("legacy system down");
+        }, 2, new SimpleMeterRegistry());
+
+        handler.deliver(due());
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM user_outbox");
+        assertEquals("PENDING", row.get("status"));
+        assertEquals(1, row.get("attempts"));
+        assertEquals("legacy system down", row.get("last_error"));
+        assertTrue(due().isEmpty(), "not due again before the backoff");
+
+        jdbcTemplate.update("UPDATE user_outbox SET next_attempt_at = CURRENT_TIMESTAMP(3)");
+        handler.deliver(due());
+
+        row = jdbcTemplate.queryForMap("SELECT * FROM user_outbox");
+        assertEquals("FAILED", row.get("status"));
+        assertEquals(2, row.get("attempts"));
+        assertTrue(due().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not let another poller claim a user's newer rows while an older one is claimed")
+    void testClaimsInUserOrder() throws Exception {
+        String ana = UuidV7.randomUUID().toString();
+        String bob = UuidV7.randomUUID().toString();
+        insert(ana, "UPSERT", "Ana");
+        insert(ana, "UPSERT", "Ana B");
+        insert(bob, "UPSERT", "Bob");
+
+        try (Connection first = dataSource.getConnection()) {
+            first.setAutoCommit(false);
+            List<OutboxRecord> claimed = new JdbcTemplate(new SingleConnectionDataSource(first, true))
+                    .query(LegacySyncConfiguration.SELECT_DUE.formatted(100), OutboxRecord.MAPPER);
+            assertEquals(List.of(1L, 3L), claimed.stream().map(OutboxRecord::id).toList());
+
+            // Ana's second row is not locked, but is newer than the claimed one
+            assertTrue(due().isEmpty());
+            first.rollback();
+        }
+
+        jdbcTemplate.update("UPDATE user_outbox SET next_attempt_at = TIMESTAMPADD(MINUTE, 1, CURRENT_TIMESTAMP(3)) "
+                + "WHERE id = 1");
+        assertEquals(List.of(3L), due().stream().map(OutboxRecord::id).toList(),
+                "a row waiting for its retry holds back newer rows of the same user");
+    }
+
+    private LegacySyncHandler handler(LegacyUserSink sink, int maxAttempts, SimpleMeterRegistry registry) {
+        return new LegacySyncHandler(sink, jdbcTemplate, objectMapper, maxAttempts, Duration.ofMinutes(1), registry);
+    }
+
+    private void insert(String userId, String type, String name) {
+        jdbcTemplate.update(UserOutboxListener.INSERT_SQL, idConverter.convertToDatabaseColumn(userId), type,
+                "{\"id\":\"" + userId + "\",\"name\":\"" + name + "\",\"login\":\"x\",\"role\":\"USER\"}");
+    }
+
+    private List<OutboxRecord> due() {
+        return jdbcTemplate.query(LegacySyncConfiguration.SELECT_DUE.formatted(100), OutboxRecord.MAPPER);
+    }
+}
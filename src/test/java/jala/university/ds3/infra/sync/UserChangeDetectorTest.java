@@ -0,0 +1,136 @@
+package jala.university.ds3.infra.sync;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import jala.university.ds3.domain.user.UserIdLayout;
+import jala.university.ds3.infra.security.PrincipalCache;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plain JDBC writes stand in for the legacy system.
+ */
+class UserChangeDetectorTest {
+
+    private final List<UsersChangedEvent> events = new CopyOnWriteArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+    private PrincipalCache principalCache;
+    private UserChangeDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:jala/university/ds3/infra/migration")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        principalCache = new PrincipalCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry(), false, Runnable::run);
+        detector = detector(Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("Should report inserted and updated rows once per change, across pages")
+    void testDetectsUpdates() throws InterruptedException {
+        detector.poll();
+        String ana = insert("ana");
+        String bob = insert("bob");
+        String carol = insert("carol");
+
+        detector.poll();
+        assertEquals(Set.of(ana, bob, carol), reportedIds());
+
+        events.clear();
+        detector.poll();
+        assertTrue(events.isEmpty(), "unchanged rows in the lookback window are not reported again");
+
+        Thread.sleep(5);
+        jdbcTemplate.update("UPDATE users SET role = 'USER' WHERE login = 'bob'");
+        detector.poll();
+        assertEquals(Set.of(bob), reportedIds());
+        assertEquals(Set.of("bob"), events.get(0).logins());
+        assertEquals(Map.of("bob", "USER"), events.get(0).roles());
+    }
+
+    @Test
+    @DisplayName("Should evict cached principals whose rows were deleted")
+    void testDetectsDeletes() {
+        String ana = insert("ana");
+        String bob = insert("bob");
+        cache(ana, "ana");
+        cache(bob, "bob");
+
+        jdbcTemplate.update("DELETE FROM users WHERE login = 'bob'");
+        detector.checkDeleted();
+
+        assertEquals(Set.of(bob), reportedIds());
+        assertEquals(Map.of(), events.get(0).roles());
+        assertEquals(List.of(ana), principalCache.cachedPrincipals().stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Should report changes again once a replica can have caught up")
+    void testRepublishesAfterReplicaLag() throws InterruptedException {
+        detector = detector(Duration.ofMillis(100));
+        String ana = insert("ana");
+        cache(ana, "ana");
+
+        jdbcTemplate.update("DELETE FROM users WHERE login = 'ana'");
+        detector.checkDeleted();
+        assertEquals(1, events.size());
+
+        // Stands in for a lagging replica serving the deleted row again
+        cache(ana, "ana");
+        Thread.sleep(500);
+        assertEquals(2, events.size());
+        assertEquals(events.get(0), events.get(1));
+        assertTrue(principalCache.cachedPrincipals().isEmpty());
+        detector.shutdown();
+    }
+
+    private UserChangeDetector detector(Duration replicaLag) {
+        return new UserChangeDetector(jdbcTemplate, event -> {
+            events.add((UsersChangedEvent) event);
+            principalCache.onUsersChanged((UsersChangedEvent) event);
+        }, principalCache, UserIdLayout.VARCHAR, 2, Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(10),
+                replicaLag, new SimpleMeterRegistry());
+    }
+
+    private Set<String> reportedIds() {
+        Set<String> ids = new HashSet<>();
+        events.forEach(event -> ids.addAll(event.ids()));
+        return ids;
+    }
+
+    private String insert(String login) {
+        String id = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO users (id, name, login, password, role) VALUES (?, ?, ?, 'hash', 'ADMIN')",
+                id, login, login);
+        return id;
+    }
+
+    private void cache(String id, String login) {
+        User user = new User(login, login, "hash", UserRole.ADMIN);
+        user.setId(id);
+        principalCache.get(login, key -> Optional.of(user));
+    }
+}
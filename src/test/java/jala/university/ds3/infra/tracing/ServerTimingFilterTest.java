@@ -0,0 +1,60 @@
+package jala.university.ds3.infra.tracing;
+
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+
+    ServerTimingFilterTest() {
+        observationRegistry.observationConfig()
+                .observationHandler(new ServerTimingObservationHandler())
+                .observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+    }
+
+    @Test
+    @DisplayName("Should report every stage in Server-Timing even after the body was flushed")
+    void testSampledRequest() throws Exception {
+        var response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> {
+            ServerTiming.stage("db", observationRegistry).observe(() -> { });
+            ServerTiming.stage("serialize", observationRegistry).observe(() -> { });
+            res.getOutputStream().write("{}".getBytes(StandardCharsets.UTF_8));
+            res.getOutputStream().flush();
+        };
+
+        new ServerTimingFilter(1.0).doFilter(new MockHttpServletRequest("GET", "/users/id"), response, chain);
+
+        String header = response.getHeader(ServerTimingFilter.HEADER);
+        assertNotNull(header);
+        assertTrue(header.matches("db;dur=\\d+\\.\\d{3}, serialize;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}"), header);
+        assertEquals("{}", response.getContentAsString());
+        assertEquals(1, meterRegistry.get(ServerTiming.OBSERVATION_NAME).tag("stage", "db").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should skip observations and the header when the request is not sampled")
+    void testUnsampledRequest() throws Exception {
+        var response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) ->
+                assertSame(Observation.NOOP, ServerTiming.stage("db", observationRegistry));
+
+        new ServerTimingFilter(0.0).doFilter(new MockHttpServletRequest("GET", "/users/id"), response, chain);
+
+        assertNull(response.getHeader(ServerTimingFilter.HEADER));
+        assertTrue(meterRegistry.find(ServerTiming.OBSERVATION_NAME).timers().isEmpty());
+    }
+}
@@ -0,0 +1,94 @@
+package jala.university.ds3.repositories;
+
+import jakarta.persistence.EntityManagerFactory;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// Each repository call runs in its own session, so reads can only be served by the second-level cache
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserRepositoryCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Should serve login lookups from the cache and keep it current on save and delete")
+    void testLoginLookupCache() {
+        userRepository.save(new User("Ana", "cache_ana", "hash", UserRole.USER));
+        statistics.clear();
+
+        User user = userRepository.findByLogin("cache_ana").orElseThrow();
+        assertEquals("Ana", user.getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+
+        user.setName("Ana B");
+        user = userRepository.save(user);
+        statistics.clear();
+        assertEquals("Ana B", userRepository.findByLogin("cache_ana").orElseThrow().getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        userRepository.delete(user);
+        assertTrue(userRepository.findByLogin("cache_ana").isEmpty());
+        assertTrue(userRepository.findById(user.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should cache single-user projections until the users table changes")
+    void testProjectionQueryCache() {
+        User user = userRepository.save(new User("Bob", "cache_bob", "hash", UserRole.USER));
+
+        userRepository.findResponseById(user.getId());
+        statistics.clear();
+        assertEquals("cache_bob", userRepository.findResponseById(user.getId()).orElseThrow().login());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        userRepository.save(new User("Carol", "cache_carol", "hash", UserRole.USER));
+        statistics.clear();
+        userRepository.findResponseById(user.getId());
+        assertEquals(0, statistics.getQueryCacheHitCount());
+        assertEquals(1, statistics.getQueryCacheMissCount());
+    }
+
+    @Test
+    @DisplayName("Should reject a save based on a version that was updated meanwhile")
+    void testStaleVersionRejected() {
+        User saved = userRepository.save(new User("Dave", "cache_dave", "hash", UserRole.USER));
+        User first = userRepository.findById(saved.getId()).orElseThrow();
+        User second = userRepository.findById(saved.getId()).orElseThrow();
+
+        first.setName("Dave A");
+        assertEquals(1L, userRepository.save(first).getVersion());
+
+        second.setName("Dave B");
+        assertThrows(OptimisticLockingFailureException.class, () -> userRepository.save(second));
+        assertEquals("Dave A", userRepository.findById(saved.getId()).orElseThrow().getName());
+    }
+}
@@ -0,0 +1,59 @@
+package jala.university.ds3.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import jala.university.ds3.infra.security.TokenRevocationRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenServiceTest {
+
+    private final TokenService tokenService = new TokenService("test-secret-key", 100, new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("Should validate a generated token and return its subject")
+    void testGenerateAndValidate() {
+        String token = tokenService.generateToken(new User("Admin", "admin", "encrypted", UserRole.ADMIN));
+
+        assertEquals("admin", tokenService.validateToken(token));
+        // Second call is served from the verified-token cache
+        assertEquals("admin", tokenService.validateToken(token));
+        assertEquals("ADMIN", tokenService.decodeToken(token).getClaim("role").asString());
+    }
+
+    @Test
+    @DisplayName("Should reject tokens signed with another secret")
+    void testRejectForeignToken() {
+        String token = new TokenService("other-secret", 100, new SimpleMeterRegistry())
+                .generateToken(new User("Admin", "admin", "encrypted", UserRole.ADMIN));
+
+        assertNull(tokenService.validateToken(token));
+        assertNull(tokenService.validateToken(token));
+    }
+
+    @Test
+    @DisplayName("Should reject a token issued just before a revocation and accept one issued after it")
+    void testTokenAroundRevocation() throws InterruptedException {
+        TokenRevocationRegistry registry = new TokenRevocationRegistry(Duration.ofHours(6));
+        User admin = new User("Admin", "admin", "encrypted", UserRole.ADMIN);
+        String before = tokenService.generateToken(admin);
+        registry.revoke("admin");
+        Thread.sleep(2);
+        String after = tokenService.generateToken(admin);
+
+        assertTrue(registry.isRevoked("admin", TokenService.issuedAt(tokenService.decodeToken(before))));
+        assertFalse(registry.isRevoked("admin", TokenService.issuedAt(tokenService.decodeToken(after))));
+    }
+
+    @Test
+    @DisplayName("Should return null for malformed or missing tokens")
+    void testMalformedToken() {
+        assertNull(tokenService.validateToken("not-a-jwt"));
+        assertNull(tokenService.validateToken(null));
+    }
+}
@@ -0,0 +1,81 @@
+package jala.university.ds3.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.domain.user.UserRole;
+import jala.university.ds3.dto.BulkRegisterResponse;
+import jala.university.ds3.dto.BulkRegisterResult.Status;
+import jala.university.ds3.infra.security.PasswordHashingExecutor;
+import jala.university.ds3.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Inserts through the real UserService and database; only the conflict query is stubbed,
+ * so a login taken after it is only found by the INSERT.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class UserImportFlushTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private Validator validator;
+
+    private PasswordHashingExecutor hashingExecutor;
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository conflictQuery = mock(UserRepository.class);
+        when(conflictQuery.findExistingLogins(anyCollection())).thenReturn(List.of());
+        hashingExecutor = new PasswordHashingExecutor(2, 100, Duration.ofSeconds(1), new SimpleMeterRegistry());
+        importService = new UserImportService(conflictQuery, userService, new BCryptPasswordEncoder(4),
+                hashingExecutor, validator, new ObjectMapper(), 10, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should report a login taken between the conflict query and the insert as a conflict")
+    void testConflictFoundByInsert() throws Exception {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        userRepository.save(new User("Taken", "taken_" + suffix, "hash", UserRole.USER));
+
+        BulkRegisterResponse response = importService.importUsers(new ByteArrayInputStream((
+                "{\"name\":\"Fresh\",\"login\":\"fresh_" + suffix + "\",\"password\":\"secret1\",\"role\":\"USER\"}\n"
+                        + "{\"name\":\"Taken\",\"login\":\"taken_" + suffix + "\",\"password\":\"secret2\",\"role\":\"USER\"}")
+                .getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of(Status.CREATED, Status.CONFLICT),
+                response.results().stream().map(r -> r.status()).toList());
+        User fresh = userRepository.findByLogin("fresh_" + suffix).orElseThrow();
+        assertEquals(fresh.getId(), response.results().get(0).id());
+    }
+}
@@ -0,0 +1,157 @@
+package jala.university.ds3.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jala.university.ds3.domain.user.User;
+import jala.university.ds3.dto.BulkRegisterResponse;
+import jala.university.ds3.dto.BulkRegisterResult.Status;
+import jala.university.ds3.infra.security.PasswordHashingExecutor;
+import jala.university.ds3.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+
+    private UserRepository userRepository;
+    private UserService userService;
+    private PasswordHashingExecutor hashingExecutor;
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userService = mock(UserService.class);
+        hashingExecutor = new PasswordHashingExecutor(2, 100, Duration.ofSeconds(1), new SimpleMeterRegistry());
+        importService = new UserImportService(userRepository, userService,
+                new BCryptPasswordEncoder(4),
+                hashingExecutor,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper(),
+                2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should check conflicts and insert once per batch, keeping input order")
+    @SuppressWarnings("unchecked")
+    void testImportInBatches() throws Exception {
+        when(userRepository.findExistingLogins(anyCollection())).thenReturn(List.of());
+        when(userRepository.findExistingLogins(List.of("ana", "taken"))).thenReturn(List.of("TAKEN"));
+
+        BulkRegisterResponse response = importService.importUsers(ndjson(
+                "{\"name\":\"Ana\",\"login\":\"ana\",\"password\":\"secret1\",\"role\":\"USER\"}",
+                "{\"name\":\"Taken\",\"login\":\"taken\",\"password\":\"secret2\",\"role\":\"USER\"}",
+                "{\"name\":\"Bob\",\"login\":\"bob\",\"password\":\"secret3\",\"role\":\"ADMIN\"}"));
+
+        assertEquals(2, response.created());
+        assertEquals(1, response.rejected());
+        assertEquals(List.of(Status.CREATED, Status.CONFLICT, Status.CREATED),
+                response.results().stream().map(r -> r.status()).toList());
+        assertEquals(List.of(0, 1, 2), response.results().stream().map(r -> r.index()).toList());
+
+        verify(userRepository, times(2)).findExistingLogins(anyCollection());
+        ArgumentCaptor<List<User>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(userService, times(2)).insertAll(inserted.capture());
+        User ana = inserted.getAllValues().get(0).get(0);
+        assertEquals("ana", ana.getLogin());
+        assertTrue(new BCryptPasswordEncoder().matches("secret1", ana.getPassword()));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid and duplicate items without stopping the import")
+    void testRejectsItemsIndividually() throws Exception {
+        when(userRepository.findExistingLogins(anyCollection())).thenReturn(List.of());
+
+        BulkRegisterResponse response = importService.importUsers(json(
+                "[{\"name\":\"Ana\",\"login\":\"ana\",\"password\":\"secret1\",\"role\":\"USER\"},"
+                        + "{\"name\":\"Ana 2\",\"login\":\"ANA\",\"password\":\"secret1\",\"role\":\"USER\"},"
+                        + "{\"name\":\"X\",\"login\":\"xx\",\"password\":\"1\",\"role\":\"USER\"},"
+                        + "{\"name\":\"Bad\",\"login\":\"bad\",\"password\":\"secret1\",\"role\":\"ROOT\"},"
+                        + "{\"name\":\"Eve\",\"login\":\"eve\",\"password\":\"secret1\",\"role\":\"USER\"}]"));
+
+        assertEquals(List.of(Status.CREATED, Status.CONFLICT, Status.INVALID, Status.INVALID, Status.CREATED),
+                response.results().stream().map(r -> r.status()).toList());
+        assertEquals(3, response.results().get(2).errors().size());
+        verify(userService, times(2)).insertAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should report a syntax error as the last item and keep earlier items")
+    void testStopsAtMalformedJson() throws Exception {
+        when(userRepository.findExistingLogins(anyCollection())).thenReturn(List.of());
+
+        BulkRegisterResponse response = importService.importUsers(ndjson(
+                "{\"name\":\"Ana\",\"login\":\"ana\",\"password\":\"secret1\",\"role\":\"USER\"}",
+                "{\"name\":\"Bro"));
+
+        assertEquals(1, response.created());
+        assertEquals(Status.INVALID, response.results().get(1).status());
+    }
+
+    @Test
+    @DisplayName("Should keep at most max-concurrent-hashes of one import on the shared hashing pool")
+    void testCapsHashesPerImport() throws Exception {
+        when(userRepository.findExistingLogins(anyCollection())).thenReturn(List.of());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        PasswordEncoder encoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                    return super.encode(rawPassword);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+        PasswordHashingExecutor pool = new PasswordHashingExecutor(4, 100, Duration.ofSeconds(1),
+                new SimpleMeterRegistry());
+        try {
+            UserImportService capped = new UserImportService(userRepository, userService, encoder, pool,
+                    Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), 10, 2);
+
+            BulkRegisterResponse response = capped.importUsers(ndjson(IntStream.range(0, 10)
+                    .mapToObj(i -> "{\"name\":\"User\",\"login\":\"user" + i + "\",\"password\":\"secret1\",\"role\":\"USER\"}")
+                    .toArray(String[]::new)));
+
+            assertEquals(10, response.created());
+            assertEquals(2, maxRunning.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return json(String.join("\n", lines));
+    }
+
+    private static ByteArrayInputStream json(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
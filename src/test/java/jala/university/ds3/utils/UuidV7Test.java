@@ -0,0 +1,45 @@
+package jala.university.ds3.utils;
+
+import jala.university.ds3.domain.user.UuidBinaryConverter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7Test {
+
+    @Test
+    @DisplayName("Should generate version 7, IETF variant UUIDs")
+    void testVersionAndVariant() {
+        UUID uuid = UuidV7.randomUUID();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    @DisplayName("Should sort by creation time, also in binary form")
+    void testTimeOrdered() {
+        UuidBinaryConverter converter = new UuidBinaryConverter();
+        String earlier = UuidV7.fromTimestamp(1_700_000_000_000L).toString();
+        String later = UuidV7.fromTimestamp(1_700_000_000_001L).toString();
+
+        assertTrue(earlier.compareTo(later) < 0);
+        assertTrue(Arrays.compareUnsigned(
+                converter.convertToDatabaseColumn(earlier),
+                converter.convertToDatabaseColumn(later)) < 0);
+    }
+
+    @Test
+    @DisplayName("Should round-trip ids through the binary converter")
+    void testConverterRoundTrip() {
+        UuidBinaryConverter converter = new UuidBinaryConverter();
+        String id = UuidV7.randomUUID().toString();
+
+        assertEquals(16, converter.convertToDatabaseColumn(id).length);
+        assertEquals(id, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(id)));
+    }
+}